@@ -0,0 +1,190 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the host's outbound bandwidth between the Prime SMB share and the
+ * RRD SFTP host. Each destination gets a token bucket whose rate is its
+ * weighted share of transfer.bandwidth.totalBytesPerSecond among the
+ * destinations that are currently sending, capped by its own limit. Per-file
+ * concurrency towards each destination adapts AIMD-style, backing off when
+ * per-megabyte latency climbs well above the best recently observed.
+ */
+@Component
+public class BandwidthScheduler implements InitializingBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final long ACTIVE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    public enum Destination {
+        PRIME_SMB, RRD_SFTP
+    }
+
+    @Value("${transfer.bandwidth.totalBytesPerSecond:0}")
+    private long totalBytesPerSecond;
+
+    @Value("${transfer.bandwidth.prime.bytesPerSecond:0}")
+    private long primeBytesPerSecond;
+
+    @Value("${transfer.bandwidth.rrd.bytesPerSecond:0}")
+    private long rrdBytesPerSecond;
+
+    @Value("${transfer.bandwidth.prime.weight:1}")
+    private int primeWeight;
+
+    @Value("${transfer.bandwidth.rrd.weight:1}")
+    private int rrdWeight;
+
+    @Value("${transfer.adaptive.minConcurrency:1}")
+    private int minConcurrency;
+
+    @Value("${transfer.adaptive.maxConcurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${transfer.adaptive.latencyFactor:2.0}")
+    private double latencyFactor;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<Destination, Lane> lanes = new EnumMap<>(Destination.class);
+
+    @Override
+    public void afterPropertiesSet() {
+        lanes.put(Destination.PRIME_SMB, new Lane(Destination.PRIME_SMB, primeBytesPerSecond, Math.max(1, primeWeight)));
+        lanes.put(Destination.RRD_SFTP, new Lane(Destination.RRD_SFTP, rrdBytesPerSecond, Math.max(1, rrdWeight)));
+        if (meterRegistry != null) {
+            for (Lane lane : lanes.values()) {
+                String tag = lane.destination.name().toLowerCase();
+                Gauge.builder("rsuite.bandwidth.allocated", lane, Lane::allocatedRate).tag("destination", tag).baseUnit("bytes.per.second").register(meterRegistry);
+                Gauge.builder("rsuite.bandwidth.concurrency.limit", lane, l -> l.limit).tag("destination", tag).register(meterRegistry);
+                Gauge.builder("rsuite.bandwidth.concurrency.inflight", lane, l -> l.inFlight).tag("destination", tag).register(meterRegistry);
+            }
+        }
+    }
+
+    public FileChannelTransfer.Throttle throttle(Destination destination) {
+        return lanes.get(destination)::acquireBytes;
+    }
+
+    public void beginFile(Destination destination) throws InterruptedIOException {
+        lanes.get(destination).beginFile();
+    }
+
+    public void endFile(Destination destination, long bytes, long nanos, boolean success) {
+        lanes.get(destination).endFile(bytes, nanos, success);
+    }
+
+    private double share(Lane lane) {
+        if (totalBytesPerSecond <= 0) {
+            return lane.ownLimit;
+        }
+        long now = System.nanoTime();
+        int activeWeight = 0;
+        for (Lane other : lanes.values()) {
+            if (other == lane || now - other.lastActive < ACTIVE_NANOS) {
+                activeWeight += other.weight;
+            }
+        }
+        double fairShare = totalBytesPerSecond * (double) lane.weight / activeWeight;
+        return lane.ownLimit > 0 ? Math.min(fairShare, lane.ownLimit) : fairShare;
+    }
+
+    private final class Lane {
+        private final Destination destination;
+        private final long ownLimit;
+        private final int weight;
+        private volatile long lastActive;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private int limit = maxConcurrency;
+        private int inFlight;
+        private double bestNanosPerMb = Double.MAX_VALUE;
+        private int successesSinceIncrease;
+
+        private Lane(Destination destination, long ownLimit, int weight) {
+            this.destination = destination;
+            this.ownLimit = ownLimit;
+            this.weight = weight;
+        }
+
+        private double allocatedRate() {
+            return share(this);
+        }
+
+        private void acquireBytes(int bytes) throws InterruptedIOException {
+            lastActive = System.nanoTime();
+            double rate = share(this);
+            if (rate <= 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(rate, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+                lastRefill = now;
+                tokens -= bytes;
+                waitNanos = tokens < 0 ? (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1)) : 0;
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttling " + destination);
+                }
+            }
+        }
+
+        private synchronized void beginFile() throws InterruptedIOException {
+            while (inFlight >= limit) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a " + destination + " slot");
+                }
+            }
+            inFlight++;
+        }
+
+        private synchronized void endFile(long bytes, long nanos, boolean success) {
+            inFlight--;
+            if (success && bytes > 0) {
+                double nanosPerMb = nanos / Math.max(bytes / (1024d * 1024d), 0.01d);
+                bestNanosPerMb = Math.min(bestNanosPerMb * 1.01, nanosPerMb);
+                if (nanosPerMb > bestNanosPerMb * latencyFactor) {
+                    backOff();
+                } else if (++successesSinceIncrease >= limit && limit < maxConcurrency) {
+                    limit++;
+                    successesSinceIncrease = 0;
+                }
+            } else if (!success) {
+                backOff();
+            }
+            notifyAll();
+        }
+
+        private void backOff() {
+            int reduced = Math.max(Math.max(1, minConcurrency), (int) (limit * 0.75));
+            if (reduced < limit) {
+                LOGGER.debug("Reducing {} concurrency from {} to {}", destination, limit, reduced);
+                limit = reduced;
+            }
+            successesSinceIncrease = 0;
+        }
+    }
+}
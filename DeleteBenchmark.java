@@ -0,0 +1,88 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DirectoryScanner.deleteTree over a freshly built tree, sequentially and on
+ * the delete pool. The files counter is reported per second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeleteBenchmark {
+
+    @Param({"1000", "20000"})
+    public int fileCount;
+
+    @Param({"0", "4"})
+    public int parallelism;
+
+    private Path workDir;
+
+    private Path tree;
+
+    private AnnotationConfigApplicationContext context;
+
+    private DirectoryScanner directoryScanner;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long files;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("delete-benchmark");
+        context = TransferBenchmarkSupport.context(Collections.singletonMap("transfer.delete.parallelism", parallelism), DirectoryScanner.class);
+        directoryScanner = context.getBean(DirectoryScanner.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createTree() throws IOException {
+        tree = workDir.resolve("tree");
+        TransferBenchmarkSupport.createTree(tree, fileCount, 500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        TransferBenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public boolean delete(Throughput throughput) {
+        boolean deleted = directoryScanner.deleteTree(tree.toString());
+        throughput.files += fileCount;
+        return deleted;
+    }
+}
@@ -0,0 +1,191 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lists a batch directory once with a DirectoryStream and shares the result
+ * between counting, the manifest/PDF split and zipping, and deletes
+ * directory trees without materialising File[] arrays, optionally in
+ * parallel on a dedicated ForkJoin pool. Symbolic links to files are
+ * followed when scanning, as File.listFiles did; deleting removes the link,
+ * not its target.
+ */
+@Component
+public class DirectoryScanner implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final String MANIFEST_SUFFIX = ".txt";
+
+    @Value("${transfer.delete.parallelism:0}")
+    private int deleteParallelism;
+
+    private ForkJoinPool deletePool;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (deleteParallelism > 1) {
+            deletePool = new ForkJoinPool(deleteParallelism);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (deletePool != null) {
+            deletePool.shutdownNow();
+        }
+    }
+
+    public BatchScan scan(String directory) throws IOException {
+        long start = System.nanoTime();
+        List<File> manifests = new ArrayList<>();
+        List<File> pdfs = new ArrayList<>();
+        int entries = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory))) {
+            for (Path path : stream) {
+                entries++;
+                if (!Files.isRegularFile(path)) {
+                    if (!Files.isDirectory(path)) {
+                        LOGGER.warn("Skipping {} in {} ::: [not a regular file]", path.getFileName(), directory);
+                    }
+                    continue;
+                }
+                if (path.getFileName().toString().endsWith(MANIFEST_SUFFIX)) {
+                    manifests.add(path.toFile());
+                } else {
+                    pdfs.add(path.toFile());
+                }
+            }
+        }
+        BatchScan scan = new BatchScan(entries, manifests, pdfs, System.nanoTime() - start);
+        LOGGER.info("Scanned {} ::: [{} entries, {} manifests, {} other files in {} ms]", directory, entries, manifests.size(),
+                pdfs.size(), TimeUnit.NANOSECONDS.toMillis(scan.getNanos()));
+        return scan;
+    }
+
+    public int count(String directory) {
+        int entries = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory))) {
+            for (Path ignored : stream) {
+                entries++;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not count {} ::: [{}]", directory, e.getMessage());
+        }
+        return entries;
+    }
+
+    public boolean deleteTree(String directory) {
+        long start = System.nanoTime();
+        AtomicLong deleted = new AtomicLong();
+        boolean success;
+        try {
+            deleteTree(Paths.get(directory), deleted);
+            success = true;
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.error("Error in deleting {} ::: [{}]", directory, e.getMessage());
+            success = false;
+        }
+        LOGGER.info("Deleted {} entries under {} in {} ms", deleted.get(), directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return success;
+    }
+
+    private void deleteTree(Path directory, AtomicLong deleted) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    deleteTree(path, deleted);
+                } else {
+                    children.add(path);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (deletePool != null && children.size() > 1) {
+            try {
+                deletePool.submit(() -> children.parallelStream().forEach(path -> deleteQuietly(path, deleted))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while deleting " + directory, e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        } else {
+            for (Path path : children) {
+                deleteQuietly(path, deleted);
+            }
+        }
+        Files.deleteIfExists(directory);
+        deleted.incrementAndGet();
+    }
+
+    private void deleteQuietly(Path path, AtomicLong deleted) {
+        try {
+            if (Files.deleteIfExists(path)) {
+                deleted.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class BatchScan {
+        private final int entries;
+        private final List<File> manifests;
+        private final List<File> pdfs;
+        private final long nanos;
+
+        private BatchScan(int entries, List<File> manifests, List<File> pdfs, long nanos) {
+            this.entries = entries;
+            this.manifests = Collections.unmodifiableList(manifests);
+            this.pdfs = Collections.unmodifiableList(pdfs);
+            this.nanos = nanos;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public List<File> getManifests() {
+            return manifests;
+        }
+
+        public List<File> getPdfs() {
+            return pdfs;
+        }
+
+        public List<File> getFiles() {
+            List<File> files = new ArrayList<>(manifests.size() + pdfs.size());
+            files.addAll(manifests);
+            files.addAll(pdfs);
+            return files;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
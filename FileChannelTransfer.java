@@ -0,0 +1,151 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Checksum;
+
+/**
+ * Copies local files into SMB, SFTP and zip output streams through a
+ * FileChannel and a buffer borrowed from a bounded pool, measuring the
+ * throughput of every transfer. The pool is shared rather than held per
+ * thread so that uploads on short-lived virtual threads reuse buffers too;
+ * at most transfer.buffer.poolSize idle buffers are kept. Local file targets
+ * are handed to FileChannel.transferTo so the kernel moves the bytes.
+ */
+@Component
+public class FileChannelTransfer implements InitializingBean {
+
+    @Value("${transfer.buffer.size:1048576}")
+    private int bufferSize;
+
+    @Value("${transfer.buffer.poolSize:16}")
+    private int poolSize;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private ArrayBlockingQueue<ByteBuffer> buffers;
+
+    @Override
+    public void afterPropertiesSet() {
+        buffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    @FunctionalInterface
+    public interface Throttle {
+        void acquire(int bytes) throws InterruptedIOException;
+    }
+
+    public TransferStats copy(File source, OutputStream target) throws IOException {
+        return copy(source, 0, target);
+    }
+
+    public TransferStats copy(File source, long position, OutputStream target) throws IOException {
+        return copy(source, position, target, null);
+    }
+
+    public TransferStats copy(File source, long position, OutputStream target, Checksum checksum) throws IOException {
+        return copy(source, position, target, checksum, null);
+    }
+
+    public TransferStats copy(File source, long position, OutputStream target, Checksum checksum, Throttle throttle) throws IOException {
+        long start = System.nanoTime();
+        long bytes = 0;
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = in.size();
+            if (target instanceof FileOutputStream && checksum == null && throttle == null) {
+                FileChannel out = ((FileOutputStream) target).getChannel();
+                while (position + bytes < size) {
+                    bytes += in.transferTo(position + bytes, size - position - bytes, out);
+                }
+            } else {
+                ByteBuffer buffer = borrowBuffer();
+                try {
+                    in.position(position);
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        if (throttle != null) {
+                            throttle.acquire(read);
+                        }
+                        target.write(buffer.array(), buffer.arrayOffset(), read);
+                        if (checksum != null) {
+                            checksum.update(buffer.array(), buffer.arrayOffset(), read);
+                        }
+                        bytes += read;
+                        buffer.clear();
+                    }
+                } finally {
+                    releaseBuffer(buffer);
+                }
+            }
+        }
+        TransferStats stats = new TransferStats(bytes, System.nanoTime() - start);
+        record(stats);
+        return stats;
+    }
+
+    private void record(TransferStats stats) {
+        if (meterRegistry == null) {
+            return;
+        }
+        meterRegistry.counter("rsuite.transfer.bytes").increment(stats.getBytes());
+        DistributionSummary.builder("rsuite.transfer.throughput")
+                .baseUnit("megabytes.per.second")
+                .register(meterRegistry)
+                .record(stats.getMegabytesPerSecond());
+    }
+
+    private ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        buffers.offer(buffer);
+    }
+
+    public static final class TransferStats {
+        private final long bytes;
+        private final long nanos;
+
+        public TransferStats(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytes / (1024d * 1024d)) / (nanos / 1_000_000_000d);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes in %d ms (%.2f MB/s)", bytes, nanos / 1_000_000, getMegabytesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A directory on the local file system, for running a landing zone pipeline
+ * end to end without SMB or SFTP access.
+ */
+@Component
+public class LocalTransferDestination implements TransferDestination {
+
+    @Value("${transfer.local.dir:${java.io.tmpdir}/rsuite-local-destination}")
+    private String localDir;
+
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public String resolve(File file, Kind kind) {
+        return Paths.get(localDir, kind.name().toLowerCase(), file.getName()).toString();
+    }
+
+    @Override
+    public void upload(File file, String remotePath) throws IOException {
+        Path target = Paths.get(remotePath);
+        Files.createDirectories(target.getParent());
+        try (OutputStream out = new FileOutputStream(target.toFile())) {
+            fileChannelTransfer.copy(file, out);
+        }
+    }
+
+    @Override
+    public long remoteLength(String remotePath) throws IOException {
+        Path target = Paths.get(remotePath);
+        return Files.exists(target) ? Files.size(target) : -1;
+    }
+}
@@ -0,0 +1,242 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes mail delivery off the transfer threads. Events go into a bounded
+ * queue; a single sender thread coalesces events with the same level and
+ * source into one digest per notification.windowSeconds and sends at most
+ * notification.maxPerMinute mails, holding back digests that are over the
+ * limit so later events fold into them. At most
+ * notification.maxPendingDigests digests are held back; events for new
+ * sources beyond that are dropped and counted.
+ */
+@Component
+public class NotificationDispatcher implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final int MAX_MESSAGES_PER_DIGEST = 50;
+
+    @Value("${notification.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.queueCapacity:1000}")
+    private int queueCapacity;
+
+    @Value("${notification.windowSeconds:60}")
+    private long windowSeconds;
+
+    @Value("${notification.maxPerMinute:10}")
+    private int maxPerMinute;
+
+    @Value("${notification.maxPendingDigests:500}")
+    private int maxPendingDigests;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong submitted = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final Map<String, Digest> pending = new LinkedHashMap<>();
+
+    private BlockingQueue<Event> queue;
+
+    private Thread sender;
+
+    private volatile boolean running = true;
+
+    private double tokens;
+
+    private long lastRefill = System.nanoTime();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        tokens = maxPerMinute;
+        if (meterRegistry != null) {
+            FunctionCounter.builder("rsuite.notification.submitted", submitted, AtomicLong::get).register(meterRegistry);
+            FunctionCounter.builder("rsuite.notification.dropped", dropped, AtomicLong::get).register(meterRegistry);
+            FunctionCounter.builder("rsuite.notification.coalesced", coalesced, AtomicLong::get).register(meterRegistry);
+            FunctionCounter.builder("rsuite.notification.sent", sent, AtomicLong::get).register(meterRegistry);
+            Gauge.builder("rsuite.notification.queued", queue, BlockingQueue::size).register(meterRegistry);
+            Gauge.builder("rsuite.notification.pending", pending, Map::size).register(meterRegistry);
+        }
+        sender = new Thread(this::run, "notification-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (sender == null) {
+            return;
+        }
+        running = false;
+        sender.interrupt();
+        sender.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public void submit(String application, String level, String subject, String source, String message) {
+        if (!enabled) {
+            notificationService.SendMail(application, level, subject, message);
+            return;
+        }
+        submitted.incrementAndGet();
+        if (!queue.offer(new Event(application, level, subject, source, message))) {
+            dropped.incrementAndGet();
+            LOGGER.warn("Notification queue full, dropped {} notification for {}", level, source);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Event event = queue.poll(1, TimeUnit.SECONDS);
+                while (event != null) {
+                    add(event);
+                    event = queue.poll();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            flush(!running);
+        }
+        Event event;
+        while ((event = queue.poll()) != null) {
+            add(event);
+        }
+        flush(true);
+    }
+
+    private void add(Event event) {
+        String key = event.level + "|" + event.source;
+        Digest digest = pending.get(key);
+        if (digest == null) {
+            if (pending.size() >= Math.max(1, maxPendingDigests)) {
+                dropped.incrementAndGet();
+                LOGGER.warn("{} notifications pending, dropped {} notification for {}", pending.size(), event.level, event.source);
+                return;
+            }
+            pending.put(key, new Digest(event));
+        } else {
+            digest.add(event.message);
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private void flush(boolean force) {
+        long now = System.nanoTime();
+        refill(now);
+        Iterator<Digest> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Digest digest = iterator.next();
+            if (!force && now - digest.firstSeen < TimeUnit.SECONDS.toNanos(windowSeconds)) {
+                continue;
+            }
+            if (!force && tokens < 1) {
+                break;
+            }
+            tokens--;
+            iterator.remove();
+            try {
+                notificationService.SendMail(digest.application, digest.level, digest.subject, digest.body());
+                sent.incrementAndGet();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error in sending {} notification for {} ::: [{}]", digest.level, digest.source, e.getMessage());
+            }
+        }
+    }
+
+    private void refill(long now) {
+        double perNano = maxPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        tokens = Math.min(maxPerMinute, tokens + (now - lastRefill) * perNano);
+        lastRefill = now;
+    }
+
+    private static final class Event {
+        private final String application;
+        private final String level;
+        private final String subject;
+        private final String source;
+        private final String message;
+
+        private Event(String application, String level, String subject, String source, String message) {
+            this.application = application;
+            this.level = level;
+            this.subject = subject;
+            this.source = source;
+            this.message = message;
+        }
+    }
+
+    private static final class Digest {
+        private final String application;
+        private final String level;
+        private final String subject;
+        private final String source;
+        private final long firstSeen = System.nanoTime();
+        private final List<String> messages = new ArrayList<>();
+        private int count;
+
+        private Digest(Event event) {
+            this.application = event.application;
+            this.level = event.level;
+            this.subject = event.subject;
+            this.source = event.source;
+            add(event.message);
+        }
+
+        private void add(String message) {
+            count++;
+            if (messages.size() < MAX_MESSAGES_PER_DIGEST) {
+                messages.add(message);
+            }
+        }
+
+        private String body() {
+            if (count == 1) {
+                return messages.get(0);
+            }
+            StringBuilder body = new StringBuilder();
+            body.append(count).append(" ").append(level).append(" events for [").append(source).append("]\n\n");
+            for (String message : messages) {
+                body.append(message).append("\n\n");
+            }
+            if (count > messages.size()) {
+                body.append("... and ").append(count - messages.size()).append(" more");
+            }
+            return body.toString();
+        }
+    }
+}
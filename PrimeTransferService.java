@@ -1,34 +1,36 @@
 package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
 
-import com.jcraft.jsch.Channel;
-import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.Session;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
 import com.optum.rsuite.kafka.rsuiteprimetransfer.util.KafkaUtilService;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.TransferPayload;
 import jcifs.smb.NtlmPasswordAuthentication;
 import jcifs.smb.SmbFile;
-import net.lingala.zip4j.ZipFile;
-import net.lingala.zip4j.model.ZipParameters;
-import net.lingala.zip4j.model.enums.CompressionLevel;
-import net.lingala.zip4j.model.enums.CompressionMethod;
-import org.apache.tomcat.util.http.fileupload.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.zip.Checksum;
 
 @Service
 public class PrimeTransferService {
     private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
 
+    private static final String LISTENER_ID = "primeTransferListener";
+
+    private static final String ASYNC_LISTENER_ID = "primeTransferAsyncListener";
+
+    private static final String SERVICE_NAME = "prime-transfer";
+
     @Autowired
     private NtlmPasswordAuthentication auth;
 
@@ -41,211 +43,267 @@ public class PrimeTransferService {
     @Value("${Data_Directory}")
     private String Data_Dir;
 
-    @Value("${RRD_SFTP_HOST}")
-    private String SFTP_HOST;
+    @Autowired
+    private UploadExecutor uploadExecutor;
 
-    @Value("${RRD_SFTP_PORT}")
-    private int SFTP_PORT;
+    @Autowired
+    private SmbDirectoryCache smbDirectoryCache;
 
-    @Value("${RRD_SFTP_USER}")
-    private String SFTP_USER;
+    @Autowired
+    private StreamingZipUploader streamingZipUploader;
 
-    @Value("${RRD_SFTP_PASS}")
-    private String SFTP_PASS;
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
 
-    @Value("${RRD_SFTP_REMOTE_DIR}")
-    private String SFTP_REMOTE_DIR;
+    @Autowired
+    private TransferJournal transferJournal;
 
     @Autowired
-    private NotificationService notificationService;
+    private BandwidthScheduler bandwidthScheduler;
 
-    @KafkaListener(topics = ("${KAFKA_TRANSFER_TOPIC}"), groupId = "group_transfer", containerFactory = "outputKafkaListenerFactory")
-    public void receive(byte[] payload) throws IOException {
-        LOGGER.info("received payload='{}'", new String(payload));
-
-        String payloadString = new String(payload);
-        String landingZone = payloadString.substring(payloadString.indexOf(",") + 1);
-        String sourceDirectory = Data_Dir + payloadString.substring(0, payloadString.indexOf(","));
-        String[] listOfDir = sourceDirectory.split("/");
-        String outputZipFileBase = listOfDir[listOfDir.length - 1];
-        String outputZipFileDir = sourceDirectory.substring(0, sourceDirectory.indexOf(outputZipFileBase) - 1);
-
-        if (landingZone.equalsIgnoreCase("Prime")) {
-            LOGGER.info("Moving Pdfs to No Print PRODPDFs");
-            MoveManifestToSMB(sourceDirectory);
-            MovePDFSToSMB(sourceDirectory);
-
-        } else if (landingZone.equalsIgnoreCase("RRD")) {
-            LOGGER.info("Moving ZipFile to RRD");
-            try {
-                String outputZipFile = outputZipFileBase.concat(".zip");
-                zipIt4J(outputZipFileDir + File.separator + outputZipFile, sourceDirectory);
+    @Autowired
+    private UploadManifestCache uploadManifestCache;
 
-                LOGGER.info("Deleting Source Directory {}", sourceDirectory);
-                deleteDir(sourceDirectory);
-                LOGGER.info("Source Directory deleted {}", sourceDirectory);
+    @Autowired
+    private TransferWorkScheduler transferWorkScheduler;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private DirectoryScanner directoryScanner;
 
-                copyZipToRemoteRRD(new File(outputZipFileDir + File.separator + outputZipFile), outputZipFileBase);
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private SmbTransferDestination smbTransferDestination;
+
+    @Autowired
+    private TransferSupport transferSupport;
+
+    @KafkaListener(id = LISTENER_ID, topics = ("${KAFKA_TRANSFER_TOPIC}"), groupId = "group_transfer", containerFactory = "outputKafkaListenerFactory",
+            autoStartup = "#{!${transfer.async.enabled:false}}")
+    public void receive(byte[] payload) throws IOException {
+        process(payload);
+    }
+
+    @KafkaListener(id = ASYNC_LISTENER_ID, topics = ("${KAFKA_TRANSFER_TOPIC}"), groupId = "group_transfer",
+            containerFactory = TransferListenerConfig.ASYNC_LISTENER_FACTORY, autoStartup = "${transfer.async.enabled:false}")
+    public void receiveAsync(byte[] payload, Acknowledgment acknowledgment) {
+        TransferPayload parsed = TransferPayload.parse(payload);
+        if (!parsed.isValid()) {
+            LOGGER.error("Malformed payload='{}' ::: [{}]", parsed, parsed.getError());
+            acknowledgment.acknowledge();
+            return;
+        }
+        String directory = parsed.getDirectory();
+        String landingZone = parsed.getLandingZone();
+        int batchFiles = directoryScanner.count(Data_Dir + directory);
+        LOGGER.info("queued payload='{}' with {} files", parsed, batchFiles);
+        transferWorkScheduler.submit(ASYNC_LISTENER_ID, landingZone, directory, batchFiles, () -> {
+            try {
+                process(payload);
             } catch (IOException e) {
-                LOGGER.error("Error in sending file to RRD::: [{}]", e.getMessage());
+                LOGGER.error("Error in processing {} for {} ::: [{}]", directory, landingZone, e.getMessage());
             }
-            LOGGER.info("File Sent to RRD");
-        }
+        }, acknowledgment::acknowledge);
     }
 
-    private void MovePDFSToSMB(String sourceDirectory) {
-        FileInputStream pdfInputStream = null;
-        OutputStream outStream = null;
-        long startTime = System.currentTimeMillis();
+    private void process(byte[] payload) throws IOException {
+        long parseStart = System.nanoTime();
+        TransferPayload parsed = TransferPayload.parse(payload);
+        LOGGER.info("received payload='{}'", parsed);
+        if (!parsed.isValid()) {
+            LOGGER.error("Malformed payload='{}' ::: [{}]", parsed, parsed.getError());
+            return;
+        }
+
+        String landingZone = parsed.getLandingZone();
+        String sourceDirectory = Data_Dir + parsed.getDirectory();
+        String outputZipFileBase = parsed.getBatchName();
+        String outputZipFileDir = Data_Dir + parsed.getParentDirectory();
+        String zone = TransferMetrics.zoneTag(landingZone);
+        transferMetrics.recordStage(SERVICE_NAME, zone, TransferMetrics.STAGE_PARSE, parseStart);
+
+        transferMetrics.begin(zone);
+        boolean success = false;
         try {
-            File sourceDir = new File(sourceDirectory);
-            int totalFiles = sourceDir.listFiles().length;
-            LOGGER.info("{}.Files = {}", sourceDirectory, totalFiles);
-            int processedFiles = 0;
-            for (File file : sourceDir.listFiles()) {
-                if (!file.getName().endsWith(".txt")) {
-                    String subDirectory = file.getName().substring(10, 16);
-                    SmbFile smbdirectory = new SmbFile(pdfurl + subDirectory + "//ProdPDFs//", auth);
-                    if (!smbdirectory.exists()) {
-                        smbdirectory.mkdirs();
+            if (transferEngine.isEnabled()) {
+                success = transferEngine.run(SERVICE_NAME, landingZone, sourceDirectory);
+            } else if (parsed.isLandingZone(TransferPayload.PRIME)) {
+                LOGGER.info("Moving Pdfs to No Print PRODPDFs");
+                long smbStart = System.nanoTime();
+                DirectoryScanner.BatchScan scan = scanBatch(sourceDirectory, zone);
+                success = scan != null && (MoveManifestToSMB(sourceDirectory, scan.getManifests()) & MovePDFSToSMB(sourceDirectory, scan));
+                transferMetrics.recordStage(SERVICE_NAME, zone, TransferMetrics.STAGE_SMB, smbStart);
+
+            } else if (parsed.isLandingZone(TransferPayload.RRD)) {
+                LOGGER.info("Moving ZipFile to RRD");
+                if (streamingZipUploader.isEnabled()) {
+                    success = transferSupport.streamZipToRemoteRRD(SERVICE_NAME, sourceDirectory, outputZipFileBase, zone) >= 0;
+                    if (success) {
+                        sendNotification("rrd", "INFO", outputZipFileBase, "File transferred to RRD: " + outputZipFileBase + ".zip");
                     }
-                    SmbFile actualFile = new SmbFile(smbdirectory + file.getName(), auth);
-                    if (!actualFile.exists()) {
-                        actualFile.createNewFile();
+                    return;
+                }
+                try {
+                    String outputZipFile = outputZipFileBase.concat(".zip");
+                    File zipFile = new File(outputZipFileDir + File.separator + outputZipFile);
+                    transferSupport.prepareZip(SERVICE_NAME, sourceDirectory, zipFile, zone);
+                    transferMetrics.recordBatchBytes(SERVICE_NAME, zone, zipFile.length());
+
+                    long sftpStart = System.nanoTime();
+                    success = transferSupport.copyZipToRemoteRRD(SERVICE_NAME, zipFile, outputZipFileBase);
+                    transferMetrics.recordStage(SERVICE_NAME, zone, TransferMetrics.STAGE_SFTP, sftpStart);
+                    if (success) {
+                        sendNotification("rrd", "INFO", outputZipFileBase, "File transferred to RRD: " + outputZipFileBase + ".zip");
+                        transferJournal.complete(sourceDirectory);
                     }
-                    outStream = actualFile.getOutputStream();
-                    pdfInputStream = new FileInputStream(file);
-                    IOUtils.copy(pdfInputStream, outStream);
-                    processedFiles++;
-                    outStream.close();
-                    pdfInputStream.close();
-                    LOGGER.debug("Going to delete ::: [{}]", file.getName());
-                    LOGGER.debug("Deleted {} ::: [{}]", file.getName(), file.delete());
+                } catch (IOException e) {
+                    LOGGER.error("Error in sending file to RRD::: [{}]", e.getMessage());
                 }
+                LOGGER.info("File Sent to RRD");
             }
-            LOGGER.info("Files = Total : [{}], Processed : [{}]", totalFiles, processedFiles);
-            LOGGER.info("Processing completed in :" + (System.currentTimeMillis() - startTime));
-            notificationService.SendMail("rsuite-prime-transfer", "INFO", "rsuite-prime-transfer update", "PDFs transferred successfully.\nSourceDirectory: [" + sourceDirectory + "]\nTotal Files: [" + totalFiles + "]\nProcessed Files: [" + processedFiles + "]");
-        } catch (IOException e) {
-            LOGGER.error("Error in sending PDF File to PRIME ::: [{}]", e.getMessage());
-            notificationService.SendMail("rsuite-prime-transfer", "ERROR", "rsuite-prime-transfer update", "Error in sending PDF File to PRIME::: [" + e.getMessage() + "]");
+        } finally {
+            transferMetrics.end(zone);
+            transferMetrics.recordOutcome(SERVICE_NAME, zone, success);
+        }
+    }
 
+    private DirectoryScanner.BatchScan scanBatch(String sourceDirectory, String zone) {
+        long scanStart = System.nanoTime();
+        try {
+            return directoryScanner.scan(sourceDirectory);
+        } catch (IOException e) {
+            LOGGER.error("Error in sending PDF File to PRIME ::: [{} is not a readable directory]", sourceDirectory);
+            sendNotification("prime", "ERROR", sourceDirectory, "Error in sending PDF File to PRIME::: [" + sourceDirectory + " is not a readable directory]");
+            return null;
         } finally {
-            if (outStream != null) {
-                KafkaUtilService.safeClose(outStream);
-            }
-            if (pdfInputStream != null) {
-                KafkaUtilService.safeClose(pdfInputStream);
+            transferMetrics.recordStage(SERVICE_NAME, zone, TransferMetrics.STAGE_SCAN, scanStart);
+        }
+    }
+
+    private boolean MovePDFSToSMB(String sourceDirectory, DirectoryScanner.BatchScan scan) {
+        long startTime = System.currentTimeMillis();
+        int totalFiles = scan.getEntries() - scan.getManifests().size();
+        LOGGER.info("{}.Files = {}", sourceDirectory, totalFiles);
+        UploadExecutor.UploadBatch batch = uploadExecutor.newBatch();
+        SmbDirectoryCache.Batch directories = smbDirectoryCache.newBatch();
+        UploadManifestCache.Batch delta = uploadManifestCache.newBatch();
+        long totalBytes = 0;
+        for (File file : scan.getPdfs()) {
+            totalBytes += file.length();
+            String subDirectory = file.getName().length() >= 16 ? file.getName().substring(10, 16) : "";
+            batch.submit(subDirectory, file.getName(), () -> copyPDFToSMB(sourceDirectory, file, subDirectory, directories, delta));
+        }
+        batch.await();
+        delta.finish();
+        int processedFiles = batch.getProcessed();
+        List<String> failures = batch.getFailures();
+        LOGGER.info("Files = Total : [{}], Processed : [{}], Failed : [{}]", totalFiles, processedFiles, failures.size());
+        LOGGER.info("SMB round trips = Issued : [{}], Saved : [{}]", directories.getRoundTrips(), directories.getRoundTripsSaved());
+        if (uploadManifestCache.isEnabled()) {
+            LOGGER.info("Unchanged files skipped = Files : [{}], Bytes : [{}]", delta.getSkipped(), delta.getSkippedBytes());
+        }
+        LOGGER.info("Processing completed in :" + (System.currentTimeMillis() - startTime));
+        transferMetrics.recordBatchFiles(SERVICE_NAME, "prime", totalFiles);
+        transferMetrics.recordBatchBytes(SERVICE_NAME, "prime", totalBytes);
+        if (failures.isEmpty()) {
+            try {
+                transferJournal.complete(sourceDirectory);
+            } catch (IOException e) {
+                LOGGER.error("Error in journaling {} ::: [{}]", sourceDirectory, e.getMessage());
             }
+            sendNotification("prime", "INFO", sourceDirectory, "PDFs transferred successfully.\nSourceDirectory: [" + sourceDirectory + "]\nTotal Files: [" + totalFiles + "]\nProcessed Files: [" + processedFiles + "]");
+        } else {
+            sendNotification("prime", "ERROR", sourceDirectory, "Error in sending PDF Files to PRIME.\nSourceDirectory: [" + sourceDirectory + "]\nTotal Files: [" + totalFiles + "]\nProcessed Files: [" + processedFiles + "]\nFailed Files: [" + failures.size() + "]\n" + String.join("\n", failures));
         }
+        return failures.isEmpty();
     }
 
-    private void MoveManifestToSMB(String sourceDirectory) throws IOException {
-        FileInputStream txtInputStream = null;
+    private void copyPDFToSMB(String sourceDirectory, File file, String subDirectory, SmbDirectoryCache.Batch directories,
+                              UploadManifestCache.Batch delta) throws IOException {
+        String name = file.getName();
+        if (subDirectory.isEmpty()) {
+            throw new IOException("Unexpected PDF file name " + name);
+        }
         OutputStream outStream = null;
         try {
-            File dir = new File(sourceDirectory);
-            for (File file : dir.listFiles()) {
-                if (file.getName().endsWith(".txt")) {
-                    LOGGER.info("Found manifest File ::: [{}]", file.getName());
-                    SmbFile smbFile = new SmbFile(manifesturl + file.getName(), auth);
-                    if (!smbFile.exists()) {
-                        smbFile.createNewFile();
-                    }
-                    outStream = smbFile.getOutputStream();
-                    txtInputStream = new FileInputStream(file);
-                    IOUtils.copy(txtInputStream, outStream);
-                    LOGGER.info("Copied [{}] file to [{}]", file.getName(), manifesturl);
+            SmbFile smbdirectory = directories.directory(subDirectory, pdfurl, "//ProdPDFs//", auth);
+            SmbFile actualFile = new SmbFile(smbdirectory, name);
+            if (transferJournal.isAtLeast(sourceDirectory, name, TransferJournal.State.COPIED)) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Already copied ::: [{}]", name);
+                }
+            } else if (delta.isUnchanged(file, actualFile)) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Unchanged, skipped ::: [{}]", name);
+                }
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.VERIFIED);
+            } else {
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.PENDING);
+                Checksum checksum = delta.newChecksum();
+                bandwidthScheduler.beginFile(BandwidthScheduler.Destination.PRIME_SMB);
+                long copyStart = System.nanoTime();
+                boolean copied = false;
+                try {
+                    outStream = directories.openForWrite(actualFile);
+                    FileChannelTransfer.TransferStats stats = fileChannelTransfer.copy(file, 0, outStream, checksum,
+                            bandwidthScheduler.throttle(BandwidthScheduler.Destination.PRIME_SMB));
                     outStream.close();
-                    txtInputStream.close();
-                    LOGGER.debug("Going to delete ::: [{}]", file.getName());
-                    LOGGER.debug("Deleted [{}] ::: [{}]", file.getName(), file.delete());
+                    copied = true;
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Copied {} ::: [{}]", name, stats);
+                    }
+                } finally {
+                    bandwidthScheduler.endFile(BandwidthScheduler.Destination.PRIME_SMB, file.length(), System.nanoTime() - copyStart, copied);
+                }
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.COPIED);
+                if (uploadManifestCache.isEnabled()) {
+                    delta.record(file, new SmbFile(smbdirectory, name), checksum);
                 }
             }
-        } catch (IOException e) {
-            LOGGER.error("Error in sending manifest File to PRIME ::: [{}]", e.getMessage());
-            notificationService.SendMail("rsuite-prime-transfer", "ERROR", "rsuite-prime-transfer update", "Error in sending manifest File to PRIME::: [" + e.getMessage() + "]");
-
+            if (transferJournal.isEnabled() && !transferJournal.isAtLeast(sourceDirectory, name, TransferJournal.State.VERIFIED)) {
+                if (new SmbFile(smbdirectory, name).length() != file.length()) {
+                    transferJournal.record(sourceDirectory, name, TransferJournal.State.PENDING);
+                    throw new IOException("Size mismatch after copying " + name);
+                }
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.VERIFIED);
+            }
+            boolean deleted = file.delete();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} ::: [{}]", name, deleted);
+            }
+            transferJournal.record(sourceDirectory, name, TransferJournal.State.DELETED);
         } finally {
             if (outStream != null) {
                 KafkaUtilService.safeClose(outStream);
             }
-            if (txtInputStream != null) {
-                KafkaUtilService.safeClose(txtInputStream);
-            }
-        }
-    }
-
-    private void copyZipToRemoteRRD(File zipFile, String fileName) throws IOException {
-        Session session = null;
-        Channel channel = null;
-        ChannelSftp channelSftp = null;
-        LOGGER.info("preparing the host information for sftp.");
-        FileInputStream zipStream = null;
-        try {
-            JSch jsch = new JSch();
-            session = jsch.getSession(SFTP_USER, SFTP_HOST, SFTP_PORT);
-            session.setPassword(SFTP_PASS);
-            java.util.Properties config = new java.util.Properties();
-            config.put("StrictHostKeyChecking", "no");
-            session.setConfig(config);
-            session.connect();
-            LOGGER.info("Host connected.");
-            channel = session.openChannel("sftp");
-            channel.connect();
-            LOGGER.info("sftp channel opened and connected.");
-            channelSftp = (ChannelSftp) channel;
-            channelSftp.cd(SFTP_REMOTE_DIR);
-            zipStream = new FileInputStream(zipFile);
-            channelSftp.put(zipStream, fileName + ".zip");
-            LOGGER.info("Zip File " + fileName + " transfered successfully to host.");
-            notificationService.SendMail("rsuite-prime-transfer", "INFO", "rsuite-prime-transfer update", "File transferred to RRD: " + fileName + ".zip");
-        } catch (Exception ex) {
-            LOGGER.error("Error found while transfer the response::: [{}]", ex.getMessage());
-            notificationService.SendMail("rsuite-prime-transfer", "ERROR", "rsuite-prime-transfer update", "Error found while transfer TO RRD ::: [" + ex.getMessage() + "]");
-        } finally {
-            channelSftp.exit();
-            LOGGER.debug("sftp Channel exited.");
-            channel.disconnect();
-            LOGGER.debug("Channel disconnected.");
-            session.disconnect();
-            LOGGER.debug("Host Session disconnected.");
-            zipStream.close();
         }
     }
 
-    private void zipIt4J(String outputZipFile, String sourceDirectory) {
-        ZipParameters zipParameters = new ZipParameters();
-        zipParameters.setCompressionMethod(CompressionMethod.STORE);
-        zipParameters.setCompressionLevel(CompressionLevel.NORMAL);
-
-        ZipFile zipFile = new ZipFile(outputZipFile);
-
-        LOGGER.info("Zipping Folder");
-
+    private boolean MoveManifestToSMB(String sourceDirectory, List<File> manifests) {
         try {
-            File[] files = new File(sourceDirectory).listFiles();
-            for (File file : files)
-                zipFile.addFile(file);
-            //zipFile.addFolder(new File(sourceDirectory));
-        } catch (Exception e) {
-            e.printStackTrace();
+            for (File file : manifests) {
+                LOGGER.info("Found manifest File ::: [{}]", file.getName());
+                smbTransferDestination.upload(file, smbTransferDestination.resolve(file, TransferDestination.Kind.MANIFEST));
+                LOGGER.info("Copied [{}] file to [{}]", file.getName(), manifesturl);
+                boolean deleted = file.delete();
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Deleted [{}] ::: [{}]", file.getName(), deleted);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Error in sending manifest File to PRIME ::: [{}]", e.getMessage());
+            sendNotification("prime", "ERROR", sourceDirectory, "Error in sending manifest File to PRIME::: [" + e.getMessage() + "]");
+            return false;
         }
-        LOGGER.info("Zipped Folder");
-
-
     }
 
-    private boolean deleteDir(String sourceDirectory) {
-
-        File directoryToBeDeleted = new File(sourceDirectory);
-        File[] allContents = directoryToBeDeleted.listFiles();
-        if (allContents != null) {
-            for (File file : allContents) {
-                deleteDir(file.getAbsolutePath());
-            }
-        }
-        return directoryToBeDeleted.delete();
+    private void sendNotification(String zone, String level, String source, String message) {
+        transferSupport.sendNotification(SERVICE_NAME, zone, level, source, message);
     }
 
 }
@@ -0,0 +1,207 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.KafkaUtilService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Uploads a zip under a temporary remote name, keeping a local checkpoint
+ * file next to the zip that ties the part file to this zip and records how
+ * far the upload got. A retry, in this call or on Kafka redelivery, appends
+ * only the missing tail before the part file is renamed to its final name.
+ * JSch reports bytes as they are queued, not as the server acknowledges
+ * them, so the recorded offset is advisory: the upload resumes from the
+ * part file's remote size whenever that is no larger than the zip.
+ */
+@Component
+public class ResumableSftpUploader {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    @Value("${rrd.sftp.resumable:false}")
+    private boolean enabled;
+
+    @Value("${rrd.sftp.resumeAttempts:3}")
+    private int attempts;
+
+    @Value("${rrd.sftp.checkpointBytes:8388608}")
+    private long checkpointBytes;
+
+    @Autowired
+    private SftpSessionPool sftpSessionPool;
+
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
+
+    @Autowired
+    private BandwidthScheduler bandwidthScheduler;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void upload(File zipFile, String remoteName, String host, int port, String user, String password, String remoteDir) throws Exception {
+        Exception lastFailure = null;
+        for (int attempt = 1; attempt <= Math.max(1, attempts); attempt++) {
+            SftpSessionPool.PooledChannel pooled = null;
+            boolean reusable = false;
+            try {
+                pooled = sftpSessionPool.borrow(host, port, user, password);
+                ChannelSftp channelSftp = pooled.getChannel();
+                channelSftp.cd(remoteDir);
+                uploadOnce(channelSftp, zipFile, remoteName);
+                reusable = true;
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (Exception e) {
+                lastFailure = e;
+                LOGGER.warn("Attempt {} of {} to upload {} failed ::: [{}]", attempt, attempts, remoteName, e.getMessage());
+            } finally {
+                if (pooled != null) {
+                    sftpSessionPool.release(pooled, reusable);
+                }
+            }
+        }
+        throw lastFailure;
+    }
+
+    private void uploadOnce(ChannelSftp channelSftp, File zipFile, String remoteName) throws SftpException, IOException {
+        String partName = remoteName + PART_SUFFIX;
+        File checkpoint = checkpointFile(zipFile);
+        long length = zipFile.length();
+        long offset = 0;
+        long recorded = readCheckpoint(checkpoint, zipFile);
+        if (recorded >= 0) {
+            long remoteSize = remoteSize(channelSftp, partName);
+            if (remoteSize > 0 && remoteSize <= length) {
+                offset = remoteSize;
+                if (remoteSize < recorded) {
+                    LOGGER.info("Part file {} holds {} of {} bytes sent, the rest was not acknowledged", partName, remoteSize, recorded);
+                }
+            } else if (remoteSize > length) {
+                LOGGER.info("Part file {} holds {} bytes, more than the {} byte zip, starting over", partName, remoteSize, length);
+            }
+        }
+        writeCheckpoint(checkpoint, zipFile, offset);
+        if (offset > 0) {
+            LOGGER.info("Resuming upload of {} at offset {} of {}", remoteName, offset, length);
+        }
+
+        if (offset < length) {
+            OutputStream remoteStream = null;
+            try {
+                remoteStream = channelSftp.put(partName, new CheckpointMonitor(checkpoint, zipFile, offset),
+                        offset > 0 ? ChannelSftp.APPEND : ChannelSftp.OVERWRITE, 0);
+                FileChannelTransfer.TransferStats stats = fileChannelTransfer.copy(zipFile, offset, remoteStream, null,
+                        bandwidthScheduler.throttle(BandwidthScheduler.Destination.RRD_SFTP));
+                remoteStream.close();
+                LOGGER.info("Sent {} from offset {} ::: [{}]", remoteName, offset, stats);
+            } finally {
+                if (remoteStream != null) {
+                    KafkaUtilService.safeClose(remoteStream);
+                }
+            }
+        }
+
+        if (remoteSize(channelSftp, remoteName) >= 0) {
+            channelSftp.rm(remoteName);
+        }
+        channelSftp.rename(partName, remoteName);
+        Files.deleteIfExists(checkpoint.toPath());
+    }
+
+    private long remoteSize(ChannelSftp channelSftp, String remoteName) throws SftpException {
+        try {
+            SftpATTRS attrs = channelSftp.stat(remoteName);
+            return attrs.getSize();
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    private File checkpointFile(File zipFile) {
+        return new File(zipFile.getPath() + CHECKPOINT_SUFFIX);
+    }
+
+    private long readCheckpoint(File checkpoint, File zipFile) {
+        if (!checkpoint.isFile()) {
+            return -1;
+        }
+        try {
+            String[] fields = new String(Files.readAllBytes(checkpoint.toPath()), StandardCharsets.US_ASCII).trim().split(" ");
+            if (fields.length == 3 && Long.parseLong(fields[0]) == zipFile.length() && Long.parseLong(fields[1]) == zipFile.lastModified()) {
+                return Long.parseLong(fields[2]);
+            }
+            LOGGER.info("Checkpoint {} belongs to a different zip, starting over", checkpoint);
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.warn("Unreadable checkpoint {} ::: [{}]", checkpoint, e.getMessage());
+        }
+        return -1;
+    }
+
+    private void writeCheckpoint(File checkpoint, File zipFile, long offset) throws IOException {
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        String content = zipFile.length() + " " + zipFile.lastModified() + " " + offset;
+        Files.write(temp.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private final class CheckpointMonitor implements SftpProgressMonitor {
+        private final File checkpoint;
+        private final File zipFile;
+        private long sent;
+        private long sinceCheckpoint;
+
+        private CheckpointMonitor(File checkpoint, File zipFile, long offset) {
+            this.checkpoint = checkpoint;
+            this.zipFile = zipFile;
+            this.sent = offset;
+        }
+
+        @Override
+        public void init(int op, String src, String dest, long max) {
+        }
+
+        @Override
+        public boolean count(long count) {
+            sent += count;
+            sinceCheckpoint += count;
+            if (sinceCheckpoint >= checkpointBytes) {
+                sinceCheckpoint = 0;
+                try {
+                    writeCheckpoint(checkpoint, zipFile, sent);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not write checkpoint {} ::: [{}]", checkpoint, e.getMessage());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
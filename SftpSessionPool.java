@@ -0,0 +1,236 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps connected SFTP sessions and channels around between transfers,
+ * keyed by host, port and user, so a transfer only pays for the SSH
+ * handshake when no healthy idle channel is available.
+ */
+@Component
+public class SftpSessionPool implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${sftp.pool.maxPerKey:4}")
+    private int maxPerKey;
+
+    @Value("${sftp.pool.idleTimeoutSeconds:300}")
+    private long idleTimeoutSeconds;
+
+    @Value("${sftp.pool.borrowTimeoutSeconds:120}")
+    private long borrowTimeoutSeconds;
+
+    private final ConcurrentHashMap<String, KeyedPool> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong borrows = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong handshakes = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong borrowNanos = new AtomicLong();
+
+    private ScheduledExecutorService evictor;
+
+    @Override
+    public void afterPropertiesSet() {
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sftp-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(idleTimeoutSeconds, 30));
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdownNow();
+        for (KeyedPool pool : pools.values()) {
+            PooledChannel pooled;
+            while ((pooled = pool.idle.pollFirst()) != null) {
+                pooled.close();
+            }
+        }
+    }
+
+    public PooledChannel borrow(String host, int port, String user, String password) throws JSchException, InterruptedException {
+        long start = System.nanoTime();
+        String key = user + "@" + host + ":" + port;
+        KeyedPool pool = pools.computeIfAbsent(key, k -> new KeyedPool(k, Math.max(1, maxPerKey)));
+        if (!pool.permits.tryAcquire(borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+            throw new JSchException("Timed out waiting for an sftp channel to " + key);
+        }
+        try {
+            PooledChannel pooled;
+            while ((pooled = pool.idle.pollFirst()) != null) {
+                if (pooled.reset()) {
+                    hits.incrementAndGet();
+                    return borrowed(pooled, start);
+                }
+                pooled.close();
+            }
+            pooled = connect(pool, host, port, user, password);
+            handshakes.incrementAndGet();
+            return borrowed(pooled, start);
+        } catch (JSchException | RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    public void release(PooledChannel pooled, boolean reusable) {
+        if (reusable && pooled.isConnected()) {
+            pooled.lastUsed = System.nanoTime();
+            pooled.pool.idle.offerFirst(pooled);
+        } else {
+            pooled.close();
+        }
+        pooled.pool.permits.release();
+    }
+
+    public long getBorrows() {
+        return borrows.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getHandshakes() {
+        return handshakes.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getIdle() {
+        long idle = 0;
+        for (KeyedPool pool : pools.values()) {
+            idle += pool.idle.size();
+        }
+        return idle;
+    }
+
+    public double getAverageBorrowMillis() {
+        long count = borrows.get();
+        return count == 0 ? 0 : borrowNanos.get() / (count * 1_000_000d);
+    }
+
+    private PooledChannel borrowed(PooledChannel pooled, long start) {
+        long elapsed = System.nanoTime() - start;
+        borrows.incrementAndGet();
+        borrowNanos.addAndGet(elapsed);
+        LOGGER.debug("Borrowed sftp channel for {} in {} ms", pooled.pool.key, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return pooled;
+    }
+
+    private PooledChannel connect(KeyedPool pool, String host, int port, String user, String password) throws JSchException {
+        JSch jsch = new JSch();
+        Session session = jsch.getSession(user, host, port);
+        session.setPassword(password);
+        java.util.Properties config = new java.util.Properties();
+        config.put("StrictHostKeyChecking", "no");
+        session.setConfig(config);
+        session.connect();
+        LOGGER.info("Host connected.");
+        try {
+            ChannelSftp channel = (ChannelSftp) session.openChannel("sftp");
+            channel.connect();
+            LOGGER.info("sftp channel opened and connected.");
+            return new PooledChannel(pool, session, channel, channel.pwd());
+        } catch (JSchException | SftpException e) {
+            session.disconnect();
+            throw e instanceof JSchException ? (JSchException) e : new JSchException(e.getMessage(), e);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        for (KeyedPool pool : pools.values()) {
+            Iterator<PooledChannel> iterator = pool.idle.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledChannel pooled = iterator.next();
+                if ((pooled.lastUsed < cutoff || !pooled.isConnected()) && pool.idle.remove(pooled)) {
+                    pooled.close();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        LOGGER.debug("sftp pool = Borrows : [{}], Hits : [{}], Handshakes : [{}], Evictions : [{}], Idle : [{}]",
+                borrows.get(), hits.get(), handshakes.get(), evictions.get(), getIdle());
+    }
+
+    private static final class KeyedPool {
+        private final String key;
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<PooledChannel> idle = new LinkedBlockingDeque<>();
+
+        private KeyedPool(String key, int size) {
+            this.key = key;
+            this.permits = new Semaphore(size, true);
+        }
+    }
+
+    public static final class PooledChannel {
+        private final KeyedPool pool;
+        private final Session session;
+        private final ChannelSftp channel;
+        private final String home;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledChannel(KeyedPool pool, Session session, ChannelSftp channel, String home) {
+            this.pool = pool;
+            this.session = session;
+            this.channel = channel;
+            this.home = home;
+        }
+
+        public ChannelSftp getChannel() {
+            return channel;
+        }
+
+        private boolean isConnected() {
+            return session.isConnected() && channel.isConnected() && !channel.isClosed();
+        }
+
+        private boolean reset() {
+            if (!isConnected()) {
+                return false;
+            }
+            try {
+                channel.cd(home);
+                return true;
+            } catch (SftpException e) {
+                return false;
+            }
+        }
+
+        private void close() {
+            channel.exit();
+            session.disconnect();
+        }
+    }
+}
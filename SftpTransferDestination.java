@@ -0,0 +1,140 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.KafkaUtilService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * The RRD SFTP drop folder. Uploads go through ResumableSftpUploader when
+ * rrd.sftp.resumable is on, otherwise over a pooled channel; both are
+ * throttled as RRD_SFTP traffic.
+ */
+@Component
+public class SftpTransferDestination implements TransferDestination {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${RRD_SFTP_HOST}")
+    private String SFTP_HOST;
+
+    @Value("${RRD_SFTP_PORT}")
+    private int SFTP_PORT;
+
+    @Value("${RRD_SFTP_USER}")
+    private String SFTP_USER;
+
+    @Value("${RRD_SFTP_PASS}")
+    private String SFTP_PASS;
+
+    @Value("${RRD_SFTP_REMOTE_DIR}")
+    private String SFTP_REMOTE_DIR;
+
+    @Autowired
+    private SftpSessionPool sftpSessionPool;
+
+    @Autowired
+    private ResumableSftpUploader resumableSftpUploader;
+
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
+
+    @Autowired
+    private BandwidthScheduler bandwidthScheduler;
+
+    @Override
+    public String getName() {
+        return "sftp";
+    }
+
+    @Override
+    public String resolve(File file, Kind kind) {
+        return file.getName();
+    }
+
+    @Override
+    public void upload(File file, String remotePath) throws IOException {
+        if (resumableSftpUploader.isEnabled()) {
+            try {
+                resumableSftpUploader.upload(file, remotePath, SFTP_HOST, SFTP_PORT, SFTP_USER, SFTP_PASS, SFTP_REMOTE_DIR);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return;
+        }
+        SftpSessionPool.PooledChannel pooled = borrow();
+        boolean reusable = false;
+        OutputStream remoteStream = null;
+        try {
+            ChannelSftp channelSftp = pooled.getChannel();
+            channelSftp.cd(SFTP_REMOTE_DIR);
+            remoteStream = channelSftp.put(remotePath);
+            bandwidthScheduler.beginFile(BandwidthScheduler.Destination.RRD_SFTP);
+            long copyStart = System.nanoTime();
+            try {
+                FileChannelTransfer.TransferStats stats = fileChannelTransfer.copy(file, 0, remoteStream, null,
+                        bandwidthScheduler.throttle(BandwidthScheduler.Destination.RRD_SFTP));
+                remoteStream.close();
+                LOGGER.info("File {} sent ::: [{}]", remotePath, stats);
+                reusable = true;
+            } finally {
+                bandwidthScheduler.endFile(BandwidthScheduler.Destination.RRD_SFTP, file.length(), System.nanoTime() - copyStart, reusable);
+            }
+        } catch (SftpException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            sftpSessionPool.release(pooled, reusable);
+            if (remoteStream != null) {
+                KafkaUtilService.safeClose(remoteStream);
+            }
+        }
+    }
+
+    @Override
+    public long remoteLength(String remotePath) throws IOException {
+        SftpSessionPool.PooledChannel pooled = borrow();
+        boolean reusable = false;
+        try {
+            ChannelSftp channelSftp = pooled.getChannel();
+            channelSftp.cd(SFTP_REMOTE_DIR);
+            long length;
+            try {
+                length = channelSftp.stat(remotePath).getSize();
+            } catch (SftpException e) {
+                if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                    throw e;
+                }
+                length = -1;
+            }
+            reusable = true;
+            return length;
+        } catch (SftpException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            sftpSessionPool.release(pooled, reusable);
+        }
+    }
+
+    private SftpSessionPool.PooledChannel borrow() throws IOException {
+        try {
+            return sftpSessionPool.borrow(SFTP_HOST, SFTP_PORT, SFTP_USER, SFTP_PASS);
+        } catch (JSchException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while borrowing an sftp channel");
+        }
+    }
+}
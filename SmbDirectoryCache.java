@@ -0,0 +1,139 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import jcifs.smb.NtlmPasswordAuthentication;
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which remote SMB directories are already known to exist so the
+ * per-file upload path does not probe the share for them again.
+ * Entries always live for the batch; with prime.smb.dirCache.ttlSeconds > 0
+ * they are also shared process-wide until the TTL runs out.
+ */
+@Component
+public class SmbDirectoryCache {
+
+    @Value("${prime.smb.dirCache.ttlSeconds:0}")
+    private long ttlSeconds;
+
+    @Value("${prime.smb.directWrite:false}")
+    private boolean directWrite;
+
+    private final ConcurrentHashMap<String, Long> sharedDirectories = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalRoundTrips = new AtomicLong();
+
+    private final AtomicLong totalRoundTripsSaved = new AtomicLong();
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    public long getTotalRoundTrips() {
+        return totalRoundTrips.get();
+    }
+
+    public long getTotalRoundTripsSaved() {
+        return totalRoundTripsSaved.get();
+    }
+
+    private boolean isSharedEntryValid(String key) {
+        if (ttlSeconds <= 0) {
+            return false;
+        }
+        Long expiresAt = sharedDirectories.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() < 0) {
+            sharedDirectories.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public final class Batch {
+        private final ConcurrentHashMap<String, SmbFile> knownDirectories = new ConcurrentHashMap<>();
+        private final AtomicLong roundTrips = new AtomicLong();
+        private final AtomicLong roundTripsSaved = new AtomicLong();
+
+        private Batch() {
+        }
+
+        /**
+         * The directory at urlPrefix + key + urlSuffix, created if missing.
+         * The URL is only built the first time a key is seen in the batch.
+         * The share is probed outside the map, so concurrent first uploads to
+         * one directory may both check it; a mkdirs that loses that race is
+         * accepted once the directory exists.
+         */
+        public SmbFile directory(String key, String urlPrefix, String urlSuffix, NtlmPasswordAuthentication auth) throws IOException {
+            SmbFile known = knownDirectories.get(key);
+            if (known != null) {
+                saved(1);
+                return known;
+            }
+            SmbFile directory = new SmbFile(urlPrefix + key + urlSuffix, auth);
+            if (isSharedEntryValid(key)) {
+                saved(1);
+            } else {
+                roundTrip();
+                if (!directory.exists()) {
+                    roundTrip();
+                    try {
+                        directory.mkdirs();
+                    } catch (SmbException e) {
+                        roundTrip();
+                        if (!directory.exists()) {
+                            throw e;
+                        }
+                    }
+                }
+                if (ttlSeconds > 0) {
+                    sharedDirectories.put(key, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+                }
+            }
+            known = knownDirectories.putIfAbsent(key, directory);
+            return known != null ? known : directory;
+        }
+
+        public OutputStream openForWrite(SmbFile file) throws IOException {
+            if (directWrite) {
+                saved(1);
+            } else {
+                roundTrip();
+                if (!file.exists()) {
+                    roundTrip();
+                    file.createNewFile();
+                }
+            }
+            return file.getOutputStream();
+        }
+
+        public long getRoundTrips() {
+            return roundTrips.get();
+        }
+
+        public long getRoundTripsSaved() {
+            return roundTripsSaved.get();
+        }
+
+        private void roundTrip() {
+            roundTrips.incrementAndGet();
+            totalRoundTrips.incrementAndGet();
+        }
+
+        private void saved(long count) {
+            roundTripsSaved.addAndGet(count);
+            totalRoundTripsSaved.addAndGet(count);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.KafkaUtilService;
+import jcifs.smb.NtlmPasswordAuthentication;
+import jcifs.smb.SmbException;
+import jcifs.smb.SmbFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The Prime SMB shares. Manifests go to directory.manifestfile.url, PDFs to
+ * the ProdPDFs folder named by characters 10-16 of their file name under
+ * directory.pdffile.url, and archives to the root of directory.pdffile.url.
+ */
+@Component
+public class SmbTransferDestination implements TransferDestination {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${directory.manifestfile.url}")
+    private String manifesturl;
+
+    @Value("${directory.pdffile.url}")
+    private String pdfurl;
+
+    @Autowired
+    private NtlmPasswordAuthentication auth;
+
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
+
+    @Autowired
+    private BandwidthScheduler bandwidthScheduler;
+
+    @Override
+    public String getName() {
+        return "smb";
+    }
+
+    @Override
+    public String resolve(File file, Kind kind) {
+        String name = file.getName();
+        switch (kind) {
+            case MANIFEST:
+                return manifesturl + name;
+            case DOCUMENT:
+                return name.length() >= 16 ? pdfurl + name.substring(10, 16) + "//ProdPDFs//" + name : null;
+            default:
+                return pdfurl + name;
+        }
+    }
+
+    @Override
+    public void upload(File file, String remotePath) throws IOException {
+        OutputStream outStream = null;
+        bandwidthScheduler.beginFile(BandwidthScheduler.Destination.PRIME_SMB);
+        long copyStart = System.nanoTime();
+        boolean copied = false;
+        try {
+            SmbFile smbFile = new SmbFile(remotePath, auth);
+            if (!smbFile.exists()) {
+                try {
+                    smbFile.createNewFile();
+                } catch (SmbException e) {
+                    new SmbFile(smbFile.getParent(), auth).mkdirs();
+                    smbFile.createNewFile();
+                }
+            }
+            outStream = smbFile.getOutputStream();
+            FileChannelTransfer.TransferStats stats = fileChannelTransfer.copy(file, 0, outStream, null,
+                    bandwidthScheduler.throttle(BandwidthScheduler.Destination.PRIME_SMB));
+            outStream.close();
+            copied = true;
+            LOGGER.debug("Copied [{}] to [{}] ::: [{}]", file.getName(), remotePath, stats);
+        } finally {
+            bandwidthScheduler.endFile(BandwidthScheduler.Destination.PRIME_SMB, file.length(), System.nanoTime() - copyStart, copied);
+            if (outStream != null) {
+                KafkaUtilService.safeClose(outStream);
+            }
+        }
+    }
+
+    @Override
+    public long remoteLength(String remotePath) throws IOException {
+        SmbFile smbFile = new SmbFile(remotePath, auth);
+        return smbFile.exists() ? smbFile.length() : -1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the RRD zip with ZipBuilder on a writer thread and feeds it
+ * straight into the SFTP upload through a bounded pipe, so no intermediate
+ * zip is written locally.
+ * The archive is uploaded under a temporary name and only renamed once both
+ * sides of the pipe finished cleanly, replacing a zip left by an earlier
+ * delivery of the same batch. A batch with no files is rejected rather than
+ * sent as an empty zip.
+ */
+@Component
+public class StreamingZipUploader implements DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final String PART_SUFFIX = ".part";
+
+    @Value("${rrd.streaming.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rrd.streaming.pipeBufferSize:1048576}")
+    private int pipeBufferSize;
+
+    @Autowired
+    private ZipBuilder zipBuilder;
+
+    private final ExecutorService zipWriters = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "rrd-zip-writer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void destroy() {
+        zipWriters.shutdownNow();
+    }
+
+    public ZipBuilder.ZipStats upload(File sourceDirectory, ChannelSftp channelSftp, String remoteName) throws IOException, SftpException {
+        String partName = remoteName + PART_SUFFIX;
+        PipedInputStream zipIn = new PipedInputStream(pipeBufferSize);
+        PipedOutputStream zipOut = new PipedOutputStream(zipIn);
+        Future<ZipBuilder.ZipStats> writer = zipWriters.submit(() -> {
+            try {
+                return zipBuilder.build(sourceDirectory, zipOut);
+            } finally {
+                zipOut.close();
+            }
+        });
+        try {
+            channelSftp.put(zipIn, partName);
+        } catch (SftpException e) {
+            writer.cancel(true);
+            removeQuietly(channelSftp, partName);
+            throw e;
+        } finally {
+            zipIn.close();
+        }
+        ZipBuilder.ZipStats stats;
+        try {
+            stats = writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            removeQuietly(channelSftp, partName);
+            throw new IOException("Interrupted while zipping " + sourceDirectory, e);
+        } catch (ExecutionException e) {
+            removeQuietly(channelSftp, partName);
+            throw new IOException("Error in zipping " + sourceDirectory + " ::: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (stats.getEntries() == 0) {
+            removeQuietly(channelSftp, partName);
+            throw new IOException("Nothing to zip in " + sourceDirectory);
+        }
+        try {
+            removeExisting(channelSftp, remoteName);
+            channelSftp.rename(partName, remoteName);
+        } catch (SftpException e) {
+            removeQuietly(channelSftp, partName);
+            throw e;
+        }
+        LOGGER.info("Streamed {} entries from {} to {}", stats.getEntries(), sourceDirectory, remoteName);
+        return stats;
+    }
+
+    private void removeExisting(ChannelSftp channelSftp, String remoteName) throws SftpException {
+        try {
+            channelSftp.rm(remoteName);
+            LOGGER.info("Replacing {} from an earlier delivery", remoteName);
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw e;
+            }
+        }
+    }
+
+    private void removeQuietly(ChannelSftp channelSftp, String remoteName) {
+        try {
+            channelSftp.rm(remoteName);
+        } catch (SftpException e) {
+            LOGGER.debug("Could not remove partial upload {} ::: [{}]", remoteName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jcifs.smb.NtlmPasswordAuthentication;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.mockito.Mockito;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the transfer benchmarks: synthetic batch directories
+ * laid out like the Prime drops, a Spring context holding only the transfer
+ * beans under test, and an embedded SFTP server standing in for the RRD
+ * host. Batches are filled from the sample documents under the directory
+ * named by the benchmark.samples system property when it is set, so the
+ * compression figures reflect real content; otherwise half of every file is
+ * random and half is repeated text, which deflates roughly like the samples.
+ */
+public final class TransferBenchmarkSupport {
+
+    public static final String SFTP_USER = "rrd";
+
+    public static final String SFTP_PASSWORD = "rrd";
+
+    private static final String[] SHARES = {"004MCBX", "005MCBX", "009MCBX", "013ACIS", "026ACIS"};
+
+    private TransferBenchmarkSupport() {
+    }
+
+    public static void createBatch(Path directory, int files, int fileSize) throws IOException {
+        Files.createDirectories(directory);
+        List<byte[]> samples = samples();
+        Random random = new Random(files * 31L + fileSize);
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < files; i++) {
+            String name = String.format("%06d_%s_20200901_20201001_%05d_T.DOC", 500000 + i / SHARES.length, SHARES[i % SHARES.length], i);
+            byte[] content = new byte[fileSize];
+            if (samples.isEmpty()) {
+                random.nextBytes(content);
+                byte[] text = ("Renewal notice " + name + " for plan year 2020. ").getBytes(StandardCharsets.US_ASCII);
+                for (int offset = fileSize / 2; offset < fileSize; offset++) {
+                    content[offset] = text[offset % text.length];
+                }
+            } else {
+                byte[] sample = samples.get(i % samples.size());
+                for (int offset = 0; offset < fileSize; offset++) {
+                    content[offset] = sample[offset % sample.length];
+                }
+            }
+            Files.write(directory.resolve(name), content);
+            manifest.append(name).append('\n');
+        }
+        Files.write(directory.resolve(directory.getFileName() + ".txt"), manifest.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static void createTree(Path directory, int files, int filesPerDirectory) throws IOException {
+        byte[] content = new byte[1024];
+        Path current = directory;
+        for (int i = 0; i < files; i++) {
+            if (i % filesPerDirectory == 0) {
+                current = directory.resolve("d" + i / filesPerDirectory);
+                Files.createDirectories(current);
+            }
+            try (OutputStream out = Files.newOutputStream(current.resolve("f" + i))) {
+                out.write(content);
+            }
+        }
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path child : stream) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+
+    public static long size(Path directory) throws IOException {
+        long bytes = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                bytes += Files.size(path);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Starts a context with the given bean classes and properties. Beans the
+     * transfer classes expect from the application - the meter registry, the
+     * Kafka listener registry, SMB credentials and the mail service - are
+     * supplied as local stand-ins.
+     */
+    public static AnnotationConfigApplicationContext context(Map<String, Object> properties, Class<?>... beans) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(KafkaListenerEndpointRegistry.class, KafkaListenerEndpointRegistry::new);
+        context.registerBean(NtlmPasswordAuthentication.class, () -> new NtlmPasswordAuthentication("", "benchmark", ""));
+        context.registerBean(NotificationService.class, () -> Mockito.mock(NotificationService.class));
+        context.register(beans);
+        context.refresh();
+        return context;
+    }
+
+    public static SshServer startSftpServer(Path root, Path hostKey) throws IOException {
+        Files.createDirectories(root);
+        SshServer server = SshServer.setUpDefaultServer();
+        server.setHost("127.0.0.1");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(hostKey));
+        server.setPasswordAuthenticator((user, password, session) -> SFTP_USER.equals(user) && SFTP_PASSWORD.equals(password));
+        server.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        server.start();
+        return server;
+    }
+
+    private static List<byte[]> samples() throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        String directory = System.getProperty("benchmark.samples");
+        if (directory == null) {
+            return samples;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory), "*.{DOC,DOCX}")) {
+            for (Path path : stream) {
+                byte[] sample = Files.readAllBytes(path);
+                if (sample.length > 0) {
+                    samples.add(sample);
+                }
+            }
+        }
+        return samples;
+    }
+}
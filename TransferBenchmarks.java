@@ -0,0 +1,32 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the transfer benchmarks with the GC profiler, which adds allocation
+ * rate per second and per operation to every result. Arguments are regular
+ * expressions selecting benchmarks; with none, all of them run.
+ */
+public final class TransferBenchmarks {
+
+    private TransferBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(TransferBenchmarks.class.getPackage().getName() + ".*");
+        }
+        for (String include : args) {
+            options.include(include);
+        }
+        Options built = options.addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Dbenchmark.samples=" + System.getProperty("benchmark.samples", "."))
+                .build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,31 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Somewhere a landing zone delivers files to. Implementations own the
+ * transport concerns (connections, pooling, throttling) so TransferEngine
+ * only decides what gets sent where.
+ */
+public interface TransferDestination {
+
+    enum Kind {
+        MANIFEST, DOCUMENT, ARCHIVE
+    }
+
+    String getName();
+
+    /**
+     * Where the given local file lands on this destination, or null when it
+     * cannot be placed there.
+     */
+    String resolve(File file, Kind kind);
+
+    void upload(File file, String remotePath) throws IOException;
+
+    /**
+     * Length of the remote file, or -1 when it does not exist.
+     */
+    long remoteLength(String remotePath) throws IOException;
+}
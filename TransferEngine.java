@@ -0,0 +1,269 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.exception.ZipException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs a landing zone as a pipeline of stages over one batch directory:
+ * scan, optionally archive into a single zip, then upload, verify and clean
+ * up each file concurrently on the UploadExecutor. Zones are configured in
+ * transfer.engine.zones as zone=destination:stage|stage|..., where
+ * destination is the name of a TransferDestination bean. A zone needs scan,
+ * archive or both; with both, the scan decides whether there is anything
+ * left to zip. A batch with nothing left to zip resends its zip only when
+ * that zip is complete and holds at least one entry.
+ */
+@Component
+public class TransferEngine implements InitializingBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    public enum Stage {
+        SCAN, ARCHIVE, UPLOAD, VERIFY, CLEANUP
+    }
+
+    @Value("${transfer.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transfer.engine.zones:prime=smb:scan|upload|verify|cleanup,rrd=sftp:scan|archive|upload|verify|cleanup}")
+    private String zones;
+
+    @Autowired
+    private List<TransferDestination> destinations;
+
+    @Autowired
+    private DirectoryScanner directoryScanner;
+
+    @Autowired
+    private ZipBuilder zipBuilder;
+
+    @Autowired
+    private UploadExecutor uploadExecutor;
+
+    @Autowired
+    private TransferJournal transferJournal;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    private final Map<String, Pipeline> pipelines = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Map<String, TransferDestination> byName = new HashMap<>();
+        for (TransferDestination destination : destinations) {
+            byName.put(destination.getName(), destination);
+        }
+        for (String zone : zones.split(",")) {
+            String[] fields = zone.trim().split("[=:]");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Invalid transfer.engine.zones entry [" + zone + "]");
+            }
+            TransferDestination destination = byName.get(fields[1].trim());
+            if (destination == null) {
+                throw new IllegalArgumentException("Unknown transfer destination [" + fields[1] + "] for zone " + fields[0]);
+            }
+            Set<Stage> stages = EnumSet.noneOf(Stage.class);
+            for (String stage : fields[2].split("\\|")) {
+                stages.add(Stage.valueOf(stage.trim().toUpperCase()));
+            }
+            if (!stages.contains(Stage.SCAN) && !stages.contains(Stage.ARCHIVE)) {
+                throw new IllegalArgumentException("Zone " + fields[0].trim() + " needs a scan or archive stage");
+            }
+            pipelines.put(fields[0].trim().toLowerCase(), new Pipeline(destination, stages));
+            LOGGER.info("Landing zone {} sends to {} through {}", fields[0].trim(), destination.getName(), stages);
+        }
+    }
+
+    public boolean run(String service, String landingZone, String sourceDirectory) {
+        Pipeline pipeline = pipelines.get(landingZone.trim().toLowerCase());
+        if (pipeline == null) {
+            LOGGER.error("Incorrect landing Zone {}", landingZone);
+            return false;
+        }
+        String zone = TransferMetrics.zoneTag(landingZone);
+        long startTime = System.currentTimeMillis();
+        List<Item> items;
+        try {
+            items = pipeline.stages.contains(Stage.ARCHIVE)
+                    ? archive(service, zone, sourceDirectory, pipeline.stages.contains(Stage.SCAN))
+                    : items(scan(service, zone, sourceDirectory));
+        } catch (IOException e) {
+            LOGGER.error("Error in preparing {} for {} ::: [{}]", sourceDirectory, landingZone, e.getMessage());
+            notify("ERROR", sourceDirectory, "Error in preparing files for " + landingZone + " ::: [" + e.getMessage() + "]");
+            return false;
+        }
+
+        long uploadStart = System.nanoTime();
+        UploadExecutor.UploadBatch batch = uploadExecutor.newBatch();
+        long totalBytes = 0;
+        for (Item item : items) {
+            totalBytes += item.file.length();
+            String remotePath = pipeline.destination.resolve(item.file, item.kind);
+            int parent = remotePath == null ? -1 : remotePath.lastIndexOf('/');
+            String shareKey = pipeline.destination.getName() + ":" + (parent < 0 ? "" : remotePath.substring(0, parent));
+            batch.submit(shareKey, item.file.getName(), () -> transfer(pipeline, sourceDirectory, item, remotePath));
+        }
+        batch.await();
+        transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_UPLOAD, uploadStart);
+        transferMetrics.recordBatchFiles(service, zone, items.size());
+        transferMetrics.recordBatchBytes(service, zone, totalBytes);
+
+        List<String> failures = batch.getFailures();
+        LOGGER.info("{} Files = Total : [{}], Processed : [{}], Failed : [{}] in {} ms", landingZone, items.size(), batch.getProcessed(),
+                failures.size(), System.currentTimeMillis() - startTime);
+        if (!failures.isEmpty()) {
+            notify("ERROR", sourceDirectory, "Error in sending files to " + landingZone + ".\nSourceDirectory: [" + sourceDirectory
+                    + "]\nTotal Files: [" + items.size() + "]\nFailed Files: [" + failures.size() + "]\n" + String.join("\n", failures));
+            return false;
+        }
+        if (pipeline.stages.contains(Stage.CLEANUP) && pipeline.stages.contains(Stage.ARCHIVE)) {
+            long deleteStart = System.nanoTime();
+            directoryScanner.deleteTree(sourceDirectory);
+            for (Item item : items) {
+                if (!item.file.delete()) {
+                    LOGGER.warn("Could not delete [{}]", item.file.getPath());
+                }
+            }
+            transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_DELETE, deleteStart);
+        }
+        try {
+            transferJournal.complete(sourceDirectory);
+        } catch (IOException e) {
+            LOGGER.error("Error in journaling {} ::: [{}]", sourceDirectory, e.getMessage());
+        }
+        notify("INFO", sourceDirectory, "Files transferred to " + landingZone + ".\nSourceDirectory: [" + sourceDirectory
+                + "]\nTotal Files: [" + items.size() + "]");
+        return true;
+    }
+
+    private DirectoryScanner.BatchScan scan(String service, String zone, String sourceDirectory) throws IOException {
+        long scanStart = System.nanoTime();
+        DirectoryScanner.BatchScan scan = directoryScanner.scan(sourceDirectory);
+        transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_SCAN, scanStart);
+        return scan;
+    }
+
+    private static List<Item> items(DirectoryScanner.BatchScan scan) {
+        List<Item> items = new ArrayList<>(scan.getManifests().size() + scan.getPdfs().size());
+        for (File file : scan.getManifests()) {
+            items.add(new Item(file, TransferDestination.Kind.MANIFEST));
+        }
+        for (File file : scan.getPdfs()) {
+            items.add(new Item(file, TransferDestination.Kind.DOCUMENT));
+        }
+        return items;
+    }
+
+    private List<Item> archive(String service, String zone, String sourceDirectory, boolean scanFirst) throws IOException {
+        File directory = new File(sourceDirectory);
+        File zipFile = new File(directory.getParentFile(), directory.getName() + ".zip");
+        List<Item> items = new ArrayList<>(1);
+        items.add(new Item(zipFile, TransferDestination.Kind.ARCHIVE));
+        boolean hasFiles = directory.isDirectory() && (scanFirst
+                ? !scan(service, zone, sourceDirectory).getFiles().isEmpty()
+                : directoryScanner.count(sourceDirectory) > 0);
+        if (!hasFiles) {
+            if (!isCompleteZip(zipFile)) {
+                throw new IOException("Nothing to zip in " + sourceDirectory + " and no complete " + zipFile.getName() + " to resend");
+            }
+            LOGGER.info("Source Directory {} already zipped, resending {}", sourceDirectory, zipFile.getName());
+            return items;
+        }
+        long zipStart = System.nanoTime();
+        ZipBuilder.ZipStats stats = zipBuilder.build(directory, zipFile);
+        transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_ZIP, zipStart);
+        if (stats.getEntries() == 0) {
+            if (!zipFile.delete()) {
+                LOGGER.warn("Could not delete empty zip [{}]", zipFile.getPath());
+            }
+            throw new IOException("Nothing to zip in " + sourceDirectory);
+        }
+        transferMetrics.recordCompression(service, zone, stats);
+        return items;
+    }
+
+    private boolean isCompleteZip(File zipFile) {
+        if (!zipFile.isFile()) {
+            return false;
+        }
+        try {
+            ZipFile zip = new ZipFile(zipFile);
+            return zip.isValidZipFile() && !zip.getFileHeaders().isEmpty();
+        } catch (ZipException e) {
+            LOGGER.warn("Could not read {} ::: [{}]", zipFile.getPath(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void transfer(Pipeline pipeline, String sourceDirectory, Item item, String remotePath) throws IOException {
+        String name = item.file.getName();
+        if (remotePath == null) {
+            throw new IOException("No " + pipeline.destination.getName() + " location for " + name);
+        }
+        if (pipeline.stages.contains(Stage.UPLOAD) && !transferJournal.isAtLeast(sourceDirectory, name, TransferJournal.State.COPIED)) {
+            transferJournal.record(sourceDirectory, name, TransferJournal.State.PENDING);
+            pipeline.destination.upload(item.file, remotePath);
+            transferJournal.record(sourceDirectory, name, TransferJournal.State.COPIED);
+        }
+        if (pipeline.stages.contains(Stage.VERIFY) && !transferJournal.isAtLeast(sourceDirectory, name, TransferJournal.State.VERIFIED)) {
+            long remoteLength = pipeline.destination.remoteLength(remotePath);
+            if (remoteLength != item.file.length()) {
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.PENDING);
+                throw new IOException("Size mismatch after copying " + name + " (" + remoteLength + " of " + item.file.length() + " bytes)");
+            }
+            transferJournal.record(sourceDirectory, name, TransferJournal.State.VERIFIED);
+        }
+        if (pipeline.stages.contains(Stage.CLEANUP) && item.kind != TransferDestination.Kind.ARCHIVE) {
+            if (item.file.delete()) {
+                transferJournal.record(sourceDirectory, name, TransferJournal.State.DELETED);
+            }
+        }
+    }
+
+    private void notify(String level, String source, String message) {
+        notificationDispatcher.submit("rsuite-prime-transfer", level, "rsuite-prime-transfer update", source, message);
+    }
+
+    private static final class Pipeline {
+        private final TransferDestination destination;
+        private final Set<Stage> stages;
+
+        private Pipeline(TransferDestination destination, Set<Stage> stages) {
+            this.destination = destination;
+            this.stages = stages;
+        }
+    }
+
+    private static final class Item {
+        private final File file;
+        private final TransferDestination.Kind kind;
+
+        private Item(File file, TransferDestination.Kind kind) {
+            this.file = file;
+            this.kind = kind;
+        }
+    }
+}
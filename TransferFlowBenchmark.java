@@ -0,0 +1,156 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.BandwidthScheduler;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.LocalTransferDestination;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.NotificationDispatcher;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.ResumableSftpUploader;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.SftpSessionPool;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.SftpTransferDestination;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.SmbDirectoryCache;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.SmbTransferDestination;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.TransferEngine;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.TransferJournal;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.TransferMetrics;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.TransferWorkScheduler;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.UploadExecutor;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.ZipBuilder;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import org.apache.sshd.server.SshServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole batch through TransferEngine: the Prime zone copies every file to
+ * a local directory standing in for the SMB share, the RRD zone zips the
+ * batch and uploads it to an embedded SFTP server. Each invocation gets a
+ * fresh batch, and the destinations are emptied between invocations. The
+ * files and bytes counters are reported per second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferFlowBenchmark {
+
+    @Param({"Prime", "RRD"})
+    public String landingZone;
+
+    @Param({"100", "1000"})
+    public int fileCount;
+
+    @Param({"65536", "786432"})
+    public int fileSize;
+
+    private Path workDir;
+
+    private Path dataDir;
+
+    private Path localDir;
+
+    private Path sftpRoot;
+
+    private Path batch;
+
+    private long batchBytes;
+
+    private SshServer sftpServer;
+
+    private AnnotationConfigApplicationContext context;
+
+    private TransferEngine transferEngine;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long files;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("flow-benchmark");
+        dataDir = workDir.resolve("data");
+        localDir = workDir.resolve("smb");
+        sftpRoot = workDir.resolve("sftp");
+        sftpServer = TransferBenchmarkSupport.startSftpServer(sftpRoot, workDir.resolve("hostkey.ser"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("transfer.engine.enabled", true);
+        properties.put("transfer.engine.zones", "prime=local:scan|upload|verify|cleanup,rrd=sftp:scan|archive|upload|verify|cleanup");
+        properties.put("transfer.local.dir", localDir.toString());
+        properties.put("directory.manifestfile.url", "smb://localhost/unused/");
+        properties.put("directory.pdffile.url", "smb://localhost/unused/");
+        properties.put("RRD_SFTP_HOST", "127.0.0.1");
+        properties.put("RRD_SFTP_PORT", sftpServer.getPort());
+        properties.put("RRD_SFTP_USER", TransferBenchmarkSupport.SFTP_USER);
+        properties.put("RRD_SFTP_PASS", TransferBenchmarkSupport.SFTP_PASSWORD);
+        properties.put("RRD_SFTP_REMOTE_DIR", "/");
+        context = TransferBenchmarkSupport.context(properties,
+                DirectoryScanner.class, FileChannelTransfer.class, ZipBuilder.class, UploadExecutor.class, TransferJournal.class,
+                BandwidthScheduler.class, SftpSessionPool.class, ResumableSftpUploader.class, SmbDirectoryCache.class,
+                TransferWorkScheduler.class, TransferMetrics.class, NotificationDispatcher.class,
+                LocalTransferDestination.class, SftpTransferDestination.class, SmbTransferDestination.class, TransferEngine.class);
+        transferEngine = context.getBean(TransferEngine.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createBatch() throws IOException {
+        batch = dataDir.resolve("batch");
+        TransferBenchmarkSupport.createBatch(batch, fileCount, fileSize);
+        batchBytes = TransferBenchmarkSupport.size(batch);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearDestinations() throws IOException {
+        TransferBenchmarkSupport.deleteRecursively(dataDir);
+        TransferBenchmarkSupport.deleteRecursively(localDir);
+        TransferBenchmarkSupport.deleteRecursively(sftpRoot);
+        Files.createDirectories(sftpRoot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        sftpServer.stop(true);
+        TransferBenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public boolean transfer(Throughput throughput) {
+        if (!transferEngine.run("benchmark", landingZone, batch.toString())) {
+            throw new IllegalStateException("Transfer of " + batch + " to " + landingZone + " failed");
+        }
+        throughput.files += fileCount;
+        throughput.bytes += batchBytes;
+        return true;
+    }
+}
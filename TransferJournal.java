@@ -0,0 +1,169 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only write-ahead log of per-file transfer progress, keyed by source
+ * directory. Redelivered batches consult it to skip files that already made
+ * it to the destination; completed batches are dropped when the log is
+ * compacted.
+ */
+@Component
+public class TransferJournal implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final String JOURNAL_FILE = "transfer.journal";
+
+    private static final String BATCH_COMPLETE = "*";
+
+    public enum State {
+        PENDING, COPIED, VERIFIED, DELETED
+    }
+
+    @Value("${transfer.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transfer.journal.dir:${java.io.tmpdir}/rsuite-transfer-journal}")
+    private String journalDir;
+
+    @Value("${transfer.journal.sync:true}")
+    private boolean sync;
+
+    @Value("${transfer.journal.compactAfter:10000}")
+    private int compactAfter;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, State>> batches = new ConcurrentHashMap<>();
+
+    private Path journalPath;
+
+    private FileChannel journal;
+
+    private int appendedSinceCompaction;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        journalPath = dir.resolve(JOURNAL_FILE);
+        if (Files.exists(journalPath)) {
+            replay();
+        }
+        compact();
+        LOGGER.info("Transfer journal {} opened with {} unfinished batches", journalPath, batches.size());
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public State state(String sourceDirectory, String fileName) {
+        if (!enabled) {
+            return null;
+        }
+        Map<String, State> files = batches.get(sourceDirectory);
+        return files == null ? null : files.get(fileName);
+    }
+
+    public boolean isAtLeast(String sourceDirectory, String fileName, State state) {
+        State current = state(sourceDirectory, fileName);
+        return current != null && current.compareTo(state) >= 0;
+    }
+
+    public void record(String sourceDirectory, String fileName, State state) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        batches.computeIfAbsent(sourceDirectory, key -> new ConcurrentHashMap<>()).put(fileName, state);
+        append(state.name(), sourceDirectory, fileName);
+    }
+
+    public void complete(String sourceDirectory) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        batches.remove(sourceDirectory);
+        append(BATCH_COMPLETE, sourceDirectory, BATCH_COMPLETE);
+    }
+
+    private synchronized void append(String state, String sourceDirectory, String fileName) throws IOException {
+        journal.write(ByteBuffer.wrap(line(state, sourceDirectory, fileName).getBytes(StandardCharsets.UTF_8)));
+        if (sync) {
+            journal.force(false);
+        }
+        if (++appendedSinceCompaction >= compactAfter) {
+            compact();
+        }
+    }
+
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length != 3) {
+                    LOGGER.warn("Skipping torn journal record [{}]", line);
+                    continue;
+                }
+                if (BATCH_COMPLETE.equals(fields[0])) {
+                    batches.remove(fields[1]);
+                    continue;
+                }
+                try {
+                    batches.computeIfAbsent(fields[1], key -> new ConcurrentHashMap<>()).put(fields[2], State.valueOf(fields[0]));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Skipping unknown journal record [{}]", line);
+                }
+            }
+        }
+    }
+
+    private synchronized void compact() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        Path compacted = journalPath.resolveSibling(JOURNAL_FILE + ".compact");
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, ConcurrentHashMap<String, State>> batch : batches.entrySet()) {
+                for (Map.Entry<String, State> file : batch.getValue().entrySet()) {
+                    writer.write(line(file.getValue().name(), batch.getKey(), file.getKey()));
+                }
+            }
+        }
+        Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        appendedSinceCompaction = 0;
+    }
+
+    private static String line(String state, String sourceDirectory, String fileName) {
+        return state + "\t" + sourceDirectory + "\t" + fileName + "\n";
+    }
+}
@@ -0,0 +1,33 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Container factory for the asynchronous transfer listener. It consumes
+ * through the same ConsumerFactory as outputKafkaListenerFactory but leaves
+ * offset commits to the listener: records are acknowledged manually once
+ * their transfer completes, and asyncAcks holds back the commit of a record
+ * that finishes early until every record before it has been acknowledged.
+ */
+@Configuration
+public class TransferListenerConfig {
+
+    public static final String ASYNC_LISTENER_FACTORY = "asyncTransferKafkaListenerFactory";
+
+    @Bean(name = ASYNC_LISTENER_FACTORY)
+    @SuppressWarnings("unchecked")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> asyncTransferKafkaListenerFactory(
+            @Qualifier("outputKafkaListenerFactory") AbstractKafkaListenerContainerFactory<?, ?, ?> outputKafkaListenerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory((ConsumerFactory<Object, Object>) outputKafkaListenerFactory.getConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+}
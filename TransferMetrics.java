@@ -0,0 +1,163 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for the receive() pipelines: per-stage timers,
+ * per-batch file and byte histograms, per-landing-zone outcome counters and
+ * in-flight gauges, plus counters and gauges over the SFTP pool, the SMB
+ * directory cache and the async work scheduler. Nothing is recorded when
+ * the application has no MeterRegistry.
+ */
+@Component
+public class TransferMetrics implements InitializingBean {
+
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_SCAN = "scan";
+    public static final String STAGE_ZIP = "zip";
+    public static final String STAGE_DELETE = "delete";
+    public static final String STAGE_SMB = "smb";
+    public static final String STAGE_SFTP = "sftp";
+    public static final String STAGE_UPLOAD = "upload";
+    public static final String STAGE_NOTIFY = "notify";
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SftpSessionPool sftpSessionPool;
+
+    @Autowired
+    private SmbDirectoryCache smbDirectoryCache;
+
+    @Autowired
+    private TransferWorkScheduler transferWorkScheduler;
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("rsuite.sftp.pool.borrows", sftpSessionPool, SftpSessionPool::getBorrows).register(meterRegistry);
+        FunctionCounter.builder("rsuite.sftp.pool.hits", sftpSessionPool, SftpSessionPool::getHits).register(meterRegistry);
+        FunctionCounter.builder("rsuite.sftp.pool.handshakes", sftpSessionPool, SftpSessionPool::getHandshakes).register(meterRegistry);
+        FunctionCounter.builder("rsuite.sftp.pool.evictions", sftpSessionPool, SftpSessionPool::getEvictions).register(meterRegistry);
+        Gauge.builder("rsuite.sftp.pool.idle", sftpSessionPool, SftpSessionPool::getIdle).register(meterRegistry);
+        Gauge.builder("rsuite.sftp.pool.borrow.latency", sftpSessionPool, SftpSessionPool::getAverageBorrowMillis)
+                .baseUnit("milliseconds").register(meterRegistry);
+        FunctionCounter.builder("rsuite.smb.roundtrips", smbDirectoryCache, SmbDirectoryCache::getTotalRoundTrips).register(meterRegistry);
+        FunctionCounter.builder("rsuite.smb.roundtrips.saved", smbDirectoryCache, SmbDirectoryCache::getTotalRoundTripsSaved).register(meterRegistry);
+        Gauge.builder("rsuite.transfer.pending", transferWorkScheduler, TransferWorkScheduler::getPending).register(meterRegistry);
+    }
+
+    public static String zoneTag(String landingZone) {
+        if ("Prime".equalsIgnoreCase(landingZone)) {
+            return "prime";
+        }
+        if ("RRD".equalsIgnoreCase(landingZone)) {
+            return "rrd";
+        }
+        return "unknown";
+    }
+
+    public void recordStage(String service, String zone, String stage, long startNanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("rsuite.transfer.stage")
+                .tag("service", service)
+                .tag("zone", zone)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatchFiles(String service, String zone, long files) {
+        if (meterRegistry == null) {
+            return;
+        }
+        DistributionSummary.builder("rsuite.transfer.batch.files")
+                .tag("service", service)
+                .tag("zone", zone)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(files);
+    }
+
+    public void recordBatchBytes(String service, String zone, long bytes) {
+        if (meterRegistry == null) {
+            return;
+        }
+        DistributionSummary.builder("rsuite.transfer.batch.bytes")
+                .tag("service", service)
+                .tag("zone", zone)
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    public void recordCompression(String service, String zone, ZipBuilder.ZipStats stats) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String method = stats.getMethod().name().toLowerCase();
+        DistributionSummary.builder("rsuite.transfer.zip.ratio")
+                .tag("service", service)
+                .tag("zone", zone)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(stats.getRatio());
+        Timer.builder("rsuite.transfer.zip.cpu")
+                .tag("service", service)
+                .tag("zone", zone)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(stats.getCpuNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutcome(String service, String zone, boolean success) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Counter.builder("rsuite.transfer.batches")
+                .tag("service", service)
+                .tag("zone", zone)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void begin(String zone) {
+        inFlightCounter(zone).incrementAndGet();
+    }
+
+    public void end(String zone) {
+        inFlightCounter(zone).decrementAndGet();
+    }
+
+    private AtomicInteger inFlightCounter(String zone) {
+        return inFlight.computeIfAbsent(zone, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            if (meterRegistry != null) {
+                Gauge.builder("rsuite.transfer.inflight", counter, AtomicInteger::get).tag("zone", key).register(meterRegistry);
+            }
+            return counter;
+        });
+    }
+}
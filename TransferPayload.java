@@ -0,0 +1,152 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A transfer request of the form "directory,landingZone", parsed straight
+ * from the Kafka record bytes. Parsing only records offsets; strings are
+ * created on first use, and the known landing zones resolve to shared
+ * constants. Instances are reused per thread, so a parsed payload must not
+ * be kept beyond the call that parsed it.
+ */
+public final class TransferPayload {
+
+    public static final String PRIME = "Prime";
+
+    public static final String RRD = "RRD";
+
+    private static final ThreadLocal<TransferPayload> PAYLOADS = ThreadLocal.withInitial(TransferPayload::new);
+
+    private byte[] bytes;
+    private int comma;
+    private int lastSlash;
+    private int zoneEnd;
+    private String error;
+    private String directory;
+    private String landingZone;
+    private String text;
+
+    private TransferPayload() {
+    }
+
+    public static TransferPayload parse(byte[] payload) {
+        TransferPayload parsed = PAYLOADS.get();
+        parsed.reset(payload);
+        return parsed;
+    }
+
+    private void reset(byte[] payload) {
+        bytes = payload;
+        comma = -1;
+        lastSlash = -1;
+        zoneEnd = payload == null ? 0 : payload.length;
+        error = null;
+        directory = null;
+        landingZone = null;
+        text = null;
+        if (payload == null || payload.length == 0) {
+            error = "empty payload";
+            return;
+        }
+        while (zoneEnd > 0 && (payload[zoneEnd - 1] & 0xff) <= ' ') {
+            zoneEnd--;
+        }
+        for (int i = 0; i < zoneEnd; i++) {
+            byte b = payload[i];
+            if (b == ',') {
+                if (comma >= 0) {
+                    error = "more than one separator";
+                    return;
+                }
+                comma = i;
+            } else if (comma < 0) {
+                if (b >= 0 && b < ' ') {
+                    error = "control character in directory";
+                    return;
+                }
+                if (b == '/') {
+                    lastSlash = i;
+                } else if (b == '.' && isParentSegment(payload, i)) {
+                    error = "parent reference in directory";
+                    return;
+                }
+            }
+        }
+        if (comma < 0) {
+            error = "missing separator";
+        } else if (comma == 0 || lastSlash == comma - 1) {
+            error = "missing directory";
+        } else if (comma == zoneEnd - 1) {
+            error = "missing landing zone";
+        }
+    }
+
+    private boolean isParentSegment(byte[] payload, int dot) {
+        if (dot > 0 && payload[dot - 1] != '/' || dot + 1 >= zoneEnd || payload[dot + 1] != '.') {
+            return false;
+        }
+        byte after = dot + 2 < zoneEnd ? payload[dot + 2] : (byte) ',';
+        return after == '/' || after == ',';
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isLandingZone(String zone) {
+        int length = zoneEnd - comma - 1;
+        if (length != zone.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = (char) (bytes[comma + 1 + i] & 0xff);
+            if (Character.toLowerCase(c) != Character.toLowerCase(zone.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getLandingZone() {
+        if (landingZone == null) {
+            if (isLandingZone(PRIME)) {
+                landingZone = PRIME;
+            } else if (isLandingZone(RRD)) {
+                landingZone = RRD;
+            } else {
+                landingZone = new String(bytes, comma + 1, zoneEnd - comma - 1, StandardCharsets.UTF_8);
+            }
+        }
+        return landingZone;
+    }
+
+    public String getDirectory() {
+        if (directory == null) {
+            directory = new String(bytes, 0, comma, StandardCharsets.UTF_8);
+        }
+        return directory;
+    }
+
+    /**
+     * Last path segment of the directory, which names the batch and its zip.
+     */
+    public String getBatchName() {
+        return new String(bytes, lastSlash + 1, comma - lastSlash - 1, StandardCharsets.UTF_8);
+    }
+
+    public String getParentDirectory() {
+        return lastSlash <= 0 ? "" : new String(bytes, 0, lastSlash, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        if (text == null) {
+            text = bytes == null ? "" : new String(bytes, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,71 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.TransferPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferPayload parsing of a Kafka record, against splitting the decoded
+ * String as the listener used to. Run through TransferBenchmarks so
+ * gc.alloc.rate.norm shows the bytes allocated per parsed payload: parse
+ * should report none for the known landing zones, directory adds the
+ * strings a transfer needs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransferPayloadBenchmark {
+
+    @Param({"/data/outbound/2024/BATCH_000001,RRD", "/data/outbound/2024/BATCH_000001,Prime\n", "/data/outbound/2024/BATCH_000001,Archive"})
+    public String payload;
+
+    private byte[] record;
+
+    @Setup
+    public void setUp() {
+        record = payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        TransferPayload parsed = TransferPayload.parse(record);
+        blackhole.consume(parsed.isValid());
+        blackhole.consume(parsed.getLandingZone());
+        blackhole.consume(parsed.isLandingZone(TransferPayload.RRD));
+    }
+
+    @Benchmark
+    public void directory(Blackhole blackhole) {
+        TransferPayload parsed = TransferPayload.parse(record);
+        blackhole.consume(parsed.getLandingZone());
+        blackhole.consume(parsed.getDirectory());
+        blackhole.consume(parsed.getBatchName());
+        blackhole.consume(parsed.getParentDirectory());
+    }
+
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        String[] fields = new String(record, StandardCharsets.UTF_8).split(",");
+        String directory = fields[0];
+        blackhole.consume(fields[1].trim());
+        blackhole.consume(directory);
+        blackhole.consume(directory.substring(directory.lastIndexOf('/') + 1));
+        blackhole.consume(directory.substring(0, Math.max(0, directory.lastIndexOf('/'))));
+    }
+}
@@ -0,0 +1,140 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TransferPayloadTest {
+
+    private static TransferPayload parse(String payload) {
+        return TransferPayload.parse(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalid(String payload, String error) {
+        TransferPayload parsed = parse(payload);
+        assertFalse(parsed.isValid(), payload);
+        assertEquals(error, parsed.getError(), payload);
+    }
+
+    @Test
+    void parsesDirectoryAndLandingZone() {
+        TransferPayload parsed = parse("/outbound/2024/BATCH_0001,RRD");
+        assertTrue(parsed.isValid());
+        assertNull(parsed.getError());
+        assertEquals("/outbound/2024/BATCH_0001", parsed.getDirectory());
+        assertEquals("BATCH_0001", parsed.getBatchName());
+        assertEquals("/outbound/2024", parsed.getParentDirectory());
+        assertSame(TransferPayload.RRD, parsed.getLandingZone());
+        assertTrue(parsed.isLandingZone(TransferPayload.RRD));
+        assertFalse(parsed.isLandingZone(TransferPayload.PRIME));
+        assertEquals("/outbound/2024/BATCH_0001,RRD", parsed.toString());
+    }
+
+    @Test
+    void directoryWithoutParent() {
+        TransferPayload parsed = parse("BATCH_0001,Prime");
+        assertTrue(parsed.isValid());
+        assertEquals("BATCH_0001", parsed.getBatchName());
+        assertEquals("", parsed.getParentDirectory());
+    }
+
+    @Test
+    void matchesKnownLandingZonesIgnoringCase() {
+        assertSame(TransferPayload.PRIME, parse("/outbound/BATCH_0001,pRiMe").getLandingZone());
+        assertSame(TransferPayload.RRD, parse("/outbound/BATCH_0001,rrd").getLandingZone());
+        assertEquals("Archive", parse("/outbound/BATCH_0001,Archive").getLandingZone());
+    }
+
+    @Test
+    void trimsTrailingWhitespaceAndControlCharacters() {
+        TransferPayload parsed = parse("/outbound/BATCH_0001,Prime \r\n\t\u0000");
+        assertTrue(parsed.isValid());
+        assertSame(TransferPayload.PRIME, parsed.getLandingZone());
+    }
+
+    @Test
+    void keepsTrailingNonAsciiBytes() {
+        TransferPayload parsed = parse("/outbound/BATCH_0001,Zon\u00e9");
+        assertTrue(parsed.isValid());
+        assertEquals("Zon\u00e9", parsed.getLandingZone());
+
+        parsed = TransferPayload.parse(new byte[]{'B', ',', 'R', 'R', 'D', (byte) 0xff});
+        assertTrue(parsed.isValid());
+        assertFalse(parsed.isLandingZone(TransferPayload.RRD));
+    }
+
+    @Test
+    void rejectsEmptyPayloads() {
+        assertFalse(TransferPayload.parse(null).isValid());
+        assertEquals("empty payload", TransferPayload.parse(null).getError());
+        assertEquals("empty payload", TransferPayload.parse(new byte[0]).getError());
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        assertInvalid("/outbound/BATCH_0001", "missing separator");
+        assertInvalid("/outbound/BATCH_0001,RRD,Prime", "more than one separator");
+        assertInvalid(",RRD", "missing directory");
+        assertInvalid("/outbound/,RRD", "missing directory");
+        assertInvalid("/outbound/BATCH_0001,", "missing landing zone");
+        assertInvalid("/outbound/BATCH_0001, \n", "missing landing zone");
+        assertInvalid("/outbound/BATCH\t0001,RRD", "control character in directory");
+    }
+
+    @Test
+    void rejectsParentSegmentsOnly() {
+        assertInvalid("../BATCH_0001,RRD", "parent reference in directory");
+        assertInvalid("/outbound/../BATCH_0001,RRD", "parent reference in directory");
+        assertInvalid("/outbound/..,RRD", "parent reference in directory");
+        assertTrue(parse("/outbound/..BATCH_0001,RRD").isValid());
+        assertTrue(parse("/outbound/BATCH..0001,RRD").isValid());
+        assertTrue(parse("/outbound/BATCH_0001..,RRD").isValid());
+        assertTrue(parse("/outbound/./BATCH_0001,RRD").isValid());
+    }
+
+    @Test
+    void reusesOneInstancePerThread() {
+        TransferPayload first = parse("/outbound/BATCH_0001,RRD");
+        TransferPayload second = parse("/outbound/BATCH_0002,Prime");
+        assertSame(first, second);
+        assertEquals("/outbound/BATCH_0002", second.getDirectory());
+        assertSame(TransferPayload.PRIME, second.getLandingZone());
+    }
+
+    @Test
+    void parsingKnownLandingZonesDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        byte[][] payloads = {
+                "/outbound/2024/BATCH_0001,RRD".getBytes(StandardCharsets.UTF_8),
+                "/outbound/2024/BATCH_0002,Prime\n".getBytes(StandardCharsets.UTF_8)
+        };
+        int iterations = 100_000;
+        for (int i = 0; i < iterations; i++) {
+            consume(payloads[i & 1]);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int valid = 0;
+        for (int i = 0; i < iterations; i++) {
+            valid += consume(payloads[i & 1]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertEquals(iterations, valid);
+        assertTrue(allocated < 4096, "parsing " + iterations + " payloads allocated " + allocated + " bytes");
+    }
+
+    private static int consume(byte[] payload) {
+        TransferPayload parsed = TransferPayload.parse(payload);
+        return parsed.isValid() && parsed.getLandingZone() != null && !parsed.isLandingZone("Archive") ? 1 : 0;
+    }
+}
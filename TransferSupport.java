@@ -0,0 +1,159 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The RRD zip, SFTP and notification steps shared by PrimeTransferService
+ * and TransferService. Stage timings are recorded under the service name
+ * each caller passes in.
+ */
+@Component
+public class TransferSupport {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${RRD_SFTP_HOST}")
+    private String SFTP_HOST;
+
+    @Value("${RRD_SFTP_PORT}")
+    private int SFTP_PORT;
+
+    @Value("${RRD_SFTP_USER}")
+    private String SFTP_USER;
+
+    @Value("${RRD_SFTP_PASS}")
+    private String SFTP_PASS;
+
+    @Value("${RRD_SFTP_REMOTE_DIR}")
+    private String SFTP_REMOTE_DIR;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private StreamingZipUploader streamingZipUploader;
+
+    @Autowired
+    private SftpSessionPool sftpSessionPool;
+
+    @Autowired
+    private ZipBuilder zipBuilder;
+
+    @Autowired
+    private TransferJournal transferJournal;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private DirectoryScanner directoryScanner;
+
+    @Autowired
+    private SftpTransferDestination sftpTransferDestination;
+
+    public void prepareZip(String service, String sourceDirectory, File zipFile, String zone) throws IOException {
+        String zipName = zipFile.getName();
+        if (zipFile.isFile() && (transferJournal.isAtLeast(sourceDirectory, zipName, TransferJournal.State.COPIED)
+                || !new File(sourceDirectory).exists())) {
+            LOGGER.info("Source Directory {} already zipped, resending {}", sourceDirectory, zipName);
+        } else {
+            transferJournal.record(sourceDirectory, zipName, TransferJournal.State.PENDING);
+            long zipStart = System.nanoTime();
+            ZipBuilder.ZipStats stats = zipIt4J(service, zipFile.getPath(), sourceDirectory);
+            transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_ZIP, zipStart);
+            transferMetrics.recordBatchFiles(service, zone, stats.getEntries());
+            transferMetrics.recordCompression(service, zone, stats);
+            transferJournal.record(sourceDirectory, zipName, TransferJournal.State.COPIED);
+        }
+        if (!transferJournal.isAtLeast(sourceDirectory, zipName, TransferJournal.State.DELETED) && new File(sourceDirectory).exists()) {
+            deleteSource(service, zone, sourceDirectory);
+            transferJournal.record(sourceDirectory, zipName, TransferJournal.State.DELETED);
+        }
+    }
+
+    public boolean copyZipToRemoteRRD(String service, File zipFile, String fileName) {
+        LOGGER.info("preparing the host information for sftp.");
+        try {
+            sftpTransferDestination.upload(zipFile, fileName + ".zip");
+            LOGGER.info("Zip File " + fileName + " transfered successfully to host.");
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("Error found while transfer the response::: [{}]", ex.getMessage());
+            sendNotification(service, "rrd", "ERROR", fileName, "Error found while transfer TO RRD ::: [" + ex.getMessage() + "]");
+            return false;
+        }
+    }
+
+    /**
+     * Streams the batch to RRD as one zip and deletes the source directory
+     * once it is sent. Returns the number of entries streamed, or -1 when
+     * the transfer failed and the directory was left in place.
+     */
+    public long streamZipToRemoteRRD(String service, String sourceDirectory, String fileName, String zone) {
+        SftpSessionPool.PooledChannel pooled = null;
+        boolean reusable = false;
+        ZipBuilder.ZipStats stats;
+        LOGGER.info("preparing the host information for sftp.");
+        long sftpStart = System.nanoTime();
+        try {
+            pooled = sftpSessionPool.borrow(SFTP_HOST, SFTP_PORT, SFTP_USER, SFTP_PASS);
+            ChannelSftp channelSftp = pooled.getChannel();
+            channelSftp.cd(SFTP_REMOTE_DIR);
+            stats = streamingZipUploader.upload(new File(sourceDirectory), channelSftp, fileName + ".zip");
+            reusable = true;
+            LOGGER.info("Zip File " + fileName + " streamed successfully to host.");
+        } catch (Exception ex) {
+            LOGGER.error("Error found while transfer the response::: [{}]", ex.getMessage());
+            sendNotification(service, "rrd", "ERROR", fileName, "Error found while transfer TO RRD ::: [" + ex.getMessage() + "]");
+            return -1;
+        } finally {
+            if (pooled != null) {
+                sftpSessionPool.release(pooled, reusable);
+                LOGGER.debug("sftp Channel returned to pool.");
+            }
+            transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_SFTP, sftpStart);
+        }
+        transferMetrics.recordBatchFiles(service, zone, stats.getEntries());
+        transferMetrics.recordCompression(service, zone, stats);
+        deleteSource(service, zone, sourceDirectory);
+        LOGGER.info("File Sent to RRD");
+        return stats.getEntries();
+    }
+
+    public void sendNotification(String service, String zone, String level, String source, String message) {
+        long start = System.nanoTime();
+        notificationDispatcher.submit("rsuite-prime-transfer", level, "rsuite-prime-transfer update", source, message);
+        transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_NOTIFY, start);
+    }
+
+    private ZipBuilder.ZipStats zipIt4J(String service, String outputZipFile, String sourceDirectory) throws IOException {
+        LOGGER.info("Zipping Folder");
+
+        ZipBuilder.ZipStats stats;
+        try {
+            stats = zipBuilder.build(new File(sourceDirectory), new File(outputZipFile));
+        } catch (IOException e) {
+            LOGGER.error("Error in zipping {} ::: [{}]", sourceDirectory, e.getMessage());
+            sendNotification(service, "rrd", "ERROR", sourceDirectory, "Error in zipping " + sourceDirectory + " ::: [" + e.getMessage() + "]");
+            throw e;
+        }
+        LOGGER.info("Zipped Folder");
+        return stats;
+    }
+
+    private void deleteSource(String service, String zone, String sourceDirectory) {
+        LOGGER.info("Deleting Source Directory {}", sourceDirectory);
+        long deleteStart = System.nanoTime();
+        directoryScanner.deleteTree(sourceDirectory);
+        transferMetrics.recordStage(service, zone, TransferMetrics.STAGE_DELETE, deleteStart);
+        LOGGER.info("Source Directory deleted {}", sourceDirectory);
+    }
+}
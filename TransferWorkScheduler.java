@@ -0,0 +1,225 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs transfers handed off by the Kafka listener on one worker lane per
+ * landing zone, each with its own transfer.lanes.workers concurrency, so a
+ * long RRD zip never holds up a Prime batch. Within a lane smaller batches
+ * go first: a transfer is ordered by its arrival time plus
+ * transfer.lanes.msPerFile for every file in the batch, capped at
+ * transfer.lanes.maxDelaySeconds, which bounds how long a large batch can be
+ * overtaken. Work for the same directory still runs in arrival order. Once
+ * more than transfer.async.queueCapacity transfers are pending the listener
+ * container is paused, and it is resumed when the backlog has drained to
+ * half of that. Landing zones other than Prime, RRD and those named in
+ * transfer.lanes.workers share a single default lane.
+ */
+@Component
+public class TransferWorkScheduler implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private static final String DEFAULT_LANE = "default";
+
+    @Value("${transfer.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transfer.async.workers:4}")
+    private int workers;
+
+    @Value("${transfer.async.queueCapacity:16}")
+    private int queueCapacity;
+
+    @Value("${transfer.lanes.workers:}")
+    private String laneWorkers;
+
+    @Value("${transfer.lanes.msPerFile:50}")
+    private long msPerFile;
+
+    @Value("${transfer.lanes.maxDelaySeconds:900}")
+    private long maxDelaySeconds;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlightByDirectory = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ThreadPoolExecutor> lanes = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> workersByLane = new HashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile boolean shuttingDown;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String lane : laneWorkers.split(",")) {
+            String[] fields = lane.split("=");
+            if (fields.length == 2) {
+                workersByLane.put(fields[0].trim().toLowerCase(), Integer.parseInt(fields[1].trim()));
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        shuttingDown = true;
+        for (ThreadPoolExecutor lane : lanes.values()) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        for (ThreadPoolExecutor lane : lanes.values()) {
+            if (!lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOGGER.warn("Transfers still running at shutdown, their offsets will not be committed");
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    public void submit(String listenerId, String lane, String sourceDirectory, long batchFiles, Runnable work, Runnable onComplete) {
+        if (pending.incrementAndGet() >= queueCapacity) {
+            pause(listenerId);
+        }
+        long delay = Math.min(batchFiles * msPerFile, TimeUnit.SECONDS.toMillis(maxDelaySeconds));
+        Task task = new Task(System.currentTimeMillis() + delay, sequence.incrementAndGet(), work);
+        ThreadPoolExecutor executor = lane(lane);
+        CompletableFuture<Void> next = task.done;
+        next.whenComplete((ignored, error) -> {
+            if (error != null && !(error instanceof CancellationException)) {
+                LOGGER.error("Unexpected error in transfer of {} ::: [{}]", sourceDirectory, error.getMessage());
+            }
+            inFlightByDirectory.remove(sourceDirectory, next);
+            try {
+                if (!(error instanceof CancellationException)) {
+                    onComplete.run();
+                }
+            } finally {
+                if (pending.decrementAndGet() <= queueCapacity / 2) {
+                    resume(listenerId);
+                }
+            }
+        });
+        CompletableFuture<Void> previous = inFlightByDirectory.put(sourceDirectory, next);
+        if (previous == null) {
+            execute(executor, task);
+        } else {
+            previous.whenComplete((ignored, error) -> execute(executor, task));
+        }
+    }
+
+    private void execute(ThreadPoolExecutor executor, Task task) {
+        if (shuttingDown) {
+            task.done.cancel(false);
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.done.cancel(false);
+        }
+    }
+
+    private String laneKey(String lane) {
+        String key = lane == null ? DEFAULT_LANE : lane.trim().toLowerCase();
+        return "prime".equals(key) || "rrd".equals(key) || workersByLane.containsKey(key) ? key : DEFAULT_LANE;
+    }
+
+    private ThreadPoolExecutor lane(String lane) {
+        return lanes.computeIfAbsent(laneKey(lane), key -> {
+            int threads = Math.max(1, workersByLane.getOrDefault(key, workers));
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "transfer-" + key + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (meterRegistry != null) {
+                Gauge.builder("rsuite.transfer.lane.queued", executor, e -> e.getQueue().size()).tag("lane", key).register(meterRegistry);
+                Gauge.builder("rsuite.transfer.lane.active", executor, ThreadPoolExecutor::getActiveCount).tag("lane", key).register(meterRegistry);
+            }
+            LOGGER.info("Started transfer lane {} with {} workers", key, threads);
+            return executor;
+        });
+    }
+
+    private void pause(String listenerId) {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(listenerId);
+        if (container != null && !container.isPauseRequested()) {
+            LOGGER.info("Pausing listener {} with {} transfers pending", listenerId, pending.get());
+            container.pause();
+        }
+    }
+
+    private void resume(String listenerId) {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(listenerId);
+        if (container != null && container.isPauseRequested()) {
+            LOGGER.info("Resuming listener {} with {} transfers pending", listenerId, pending.get());
+            container.resume();
+        }
+    }
+
+    private static final class Task implements Runnable, Comparable<Task> {
+        private final long dueMillis;
+        private final long sequence;
+        private final Runnable work;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Task(long dueMillis, long sequence, Runnable work) {
+            this.dueMillis = dueMillis;
+            this.sequence = sequence;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                work.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byDue = Long.compare(dueMillis, other.dueMillis);
+            return byDue != 0 ? byDue : Long.compare(sequence, other.sequence);
+        }
+    }
+}
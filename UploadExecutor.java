@@ -0,0 +1,201 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans per-file upload work out over a shared worker pool, capping how many
+ * uploads may hit the same share at once. Work over a share's cap waits in
+ * that share's queue rather than on a worker thread, so uploads to other
+ * shares keep the pool busy.
+ */
+@Component
+public class UploadExecutor implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${prime.upload.workers:8}")
+    private int workers;
+
+    @Value("${prime.upload.virtualThreads:false}")
+    private boolean virtualThreads;
+
+    @Value("${prime.upload.maxPerShare:4}")
+    private int maxPerShare;
+
+    private final ConcurrentHashMap<String, ShareQueue> shareQueues = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @FunctionalInterface
+    public interface UploadTask {
+        void run() throws Exception;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (virtualThreads) {
+            executor = newVirtualThreadExecutor();
+        }
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "prime-upload-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            executor = Executors.newFixedThreadPool(Math.max(1, workers), threadFactory);
+            LOGGER.info("Upload executor started with {} workers, {} per share", workers, maxPerShare);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    public UploadBatch newBatch() {
+        return new UploadBatch();
+    }
+
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            LOGGER.info("Upload executor started on virtual threads, {} per share", maxPerShare);
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads not available on this JVM, falling back to {} platform workers", workers);
+            return null;
+        }
+    }
+
+    private ShareQueue shareQueue(String shareKey) {
+        return shareQueues.computeIfAbsent(shareKey, key -> new ShareQueue());
+    }
+
+    private interface QueuedUpload extends Runnable {
+        void rejected();
+    }
+
+    private final class ShareQueue {
+        private final Queue<QueuedUpload> waiting = new ArrayDeque<>();
+        private int running;
+
+        private void offer(QueuedUpload upload) {
+            synchronized (this) {
+                if (running >= Math.max(1, maxPerShare)) {
+                    waiting.add(upload);
+                    return;
+                }
+                running++;
+            }
+            try {
+                executor.execute(upload);
+            } catch (RejectedExecutionException e) {
+                upload.rejected();
+                done();
+            }
+        }
+
+        private void done() {
+            while (true) {
+                QueuedUpload next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        running--;
+                        return;
+                    }
+                }
+                try {
+                    executor.execute(next);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    next.rejected();
+                }
+            }
+        }
+    }
+
+    public final class UploadBatch {
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger processed = new AtomicInteger();
+
+        private UploadBatch() {
+        }
+
+        public void submit(String shareKey, String name, UploadTask task) {
+            ShareQueue share = shareQueue(shareKey);
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            futures.add(done);
+            share.offer(new QueuedUpload() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                        processed.incrementAndGet();
+                    } catch (Exception e) {
+                        LOGGER.error("Error in uploading [{}] ::: [{}]", name, e.getMessage());
+                        failures.add(name + " : " + e.getMessage());
+                    } finally {
+                        done.complete(null);
+                        share.done();
+                    }
+                }
+
+                @Override
+                public void rejected() {
+                    failures.add(name + " : upload executor is shut down");
+                    done.complete(null);
+                }
+            });
+        }
+
+        public UploadBatch await() {
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add("batch interrupted before all uploads completed");
+                    break;
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause().getMessage());
+                }
+            }
+            return this;
+        }
+
+        public int getProcessed() {
+            return processed.get();
+        }
+
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(new ArrayList<>(failures));
+        }
+    }
+}
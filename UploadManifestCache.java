@@ -0,0 +1,229 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import jcifs.smb.SmbFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Remembers what was uploaded to each remote path so a replayed batch can
+ * skip files whose remote copy is still the one we wrote. A file is skipped
+ * when the remote length and last-modified time match what was recorded and
+ * the local file is unchanged, by length and last-modified time or, with
+ * prime.delta.checksum, by CRC32 of its content.
+ * <p>
+ * Entries whose remote copy was written more than prime.delta.ttlHours ago
+ * are dropped, and beyond prime.delta.maxEntries the oldest go first. The
+ * manifest file is only rewritten after a batch that changed it.
+ */
+@Component
+public class UploadManifestCache implements InitializingBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${prime.delta.enabled:false}")
+    private boolean enabled;
+
+    @Value("${prime.delta.checksum:false}")
+    private boolean checksum;
+
+    @Value("${prime.delta.manifestFile:${java.io.tmpdir}/rsuite-upload-manifest.properties}")
+    private String manifestFile;
+
+    @Value("${prime.delta.ttlHours:168}")
+    private long ttlHours;
+
+    @Value("${prime.delta.maxEntries:200000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Paths.get(manifestFile);
+        if (Files.exists(path)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+            for (String remotePath : properties.stringPropertyNames()) {
+                Entry entry = Entry.parse(properties.getProperty(remotePath));
+                if (entry != null) {
+                    entries.put(remotePath, entry);
+                }
+            }
+        }
+        int evicted = evict();
+        LOGGER.info("Upload manifest {} loaded with {} entries, {} expired", manifestFile, entries.size(), evicted);
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    private synchronized int evict() {
+        int before = entries.size();
+        if (ttlHours > 0) {
+            long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(ttlHours);
+            entries.values().removeIf(entry -> entry.remoteModified < cutoff);
+        }
+        int excess = entries.size() - Math.max(0, maxEntries);
+        if (excess > 0) {
+            List<Map.Entry<String, Entry>> oldest = new ArrayList<>(entries.entrySet());
+            oldest.sort(Comparator.comparingLong(entry -> entry.getValue().remoteModified));
+            for (Map.Entry<String, Entry> entry : oldest.subList(0, excess)) {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return before - entries.size();
+    }
+
+    private synchronized void flush() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        Path path = Paths.get(manifestFile);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, null);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long checksumOf(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (in.read(buffer) != -1) {
+                crc.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    public final class Batch {
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicLong skippedBytes = new AtomicLong();
+        private final AtomicInteger recorded = new AtomicInteger();
+
+        private Batch() {
+        }
+
+        public Checksum newChecksum() {
+            return enabled && checksum ? new CRC32() : null;
+        }
+
+        public boolean isUnchanged(File local, SmbFile remote) throws IOException {
+            if (!enabled) {
+                return false;
+            }
+            Entry entry = entries.get(remote.getPath());
+            if (entry == null) {
+                return false;
+            }
+            boolean localUnchanged = checksum
+                    ? entry.checksum >= 0 && entry.localLength == local.length() && entry.checksum == checksumOf(local)
+                    : entry.localLength == local.length() && entry.localModified == local.lastModified();
+            if (!localUnchanged || !remote.exists() || remote.length() != entry.remoteLength || remote.lastModified() != entry.remoteModified) {
+                return false;
+            }
+            skipped.incrementAndGet();
+            skippedBytes.addAndGet(local.length());
+            return true;
+        }
+
+        public void record(File local, SmbFile remote, Checksum localChecksum) throws IOException {
+            if (enabled) {
+                entries.put(remote.getPath(), new Entry(local.length(), local.lastModified(), remote.length(), remote.lastModified(),
+                        localChecksum != null ? localChecksum.getValue() : -1));
+                recorded.incrementAndGet();
+            }
+        }
+
+        public void finish() {
+            if (!enabled || evict() == 0 && recorded.get() == 0) {
+                return;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                LOGGER.warn("Could not write upload manifest {} ::: [{}]", manifestFile, e.getMessage());
+            }
+        }
+
+        public int getSkipped() {
+            return skipped.get();
+        }
+
+        public long getSkippedBytes() {
+            return skippedBytes.get();
+        }
+    }
+
+    private static final class Entry {
+        private final long localLength;
+        private final long localModified;
+        private final long remoteLength;
+        private final long remoteModified;
+        private final long checksum;
+
+        private Entry(long localLength, long localModified, long remoteLength, long remoteModified, long checksum) {
+            this.localLength = localLength;
+            this.localModified = localModified;
+            this.remoteLength = remoteLength;
+            this.remoteModified = remoteModified;
+            this.checksum = checksum;
+        }
+
+        private static Entry parse(String value) {
+            String[] fields = value.split(",");
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return localLength + "," + localModified + "," + remoteLength + "," + remoteModified + "," + checksum;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.benchmark;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.service.ZipBuilder;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ZipBuilder over one batch directory, sweeping the compression mode and
+ * the number and size of files. The files and bytes counters are reported
+ * per second alongside the score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZipBenchmark {
+
+    @Param({"STORE", "DEFLATE:FASTEST", "DEFLATE:NORMAL", "DEFLATE:ULTRA", "ADAPTIVE"})
+    public String compression;
+
+    @Param({"100", "1000", "5000"})
+    public int fileCount;
+
+    @Param({"65536", "786432"})
+    public int fileSize;
+
+    private Path workDir;
+
+    private File batch;
+
+    private File zipFile;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ZipBuilder zipBuilder;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long files;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("zip-benchmark");
+        batch = workDir.resolve("batch").toFile();
+        zipFile = workDir.resolve("batch.zip").toFile();
+        TransferBenchmarkSupport.createBatch(batch.toPath(), fileCount, fileSize);
+        String[] mode = compression.split(":");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("rrd.zip.compression", mode[0]);
+        if (mode.length > 1) {
+            properties.put("rrd.zip.level", mode[1]);
+        }
+        context = TransferBenchmarkSupport.context(properties, DirectoryScanner.class, FileChannelTransfer.class, ZipBuilder.class);
+        zipBuilder = context.getBean(ZipBuilder.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        TransferBenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public ZipBuilder.ZipStats zip(Throughput throughput) throws IOException {
+        ZipBuilder.ZipStats stats = zipBuilder.build(batch, zipFile);
+        throughput.files += stats.getEntries();
+        throughput.bytes += stats.getBytes();
+        return stats;
+    }
+}
@@ -0,0 +1,294 @@
+package com.optum.rsuite.kafka.rsuiteprimetransfer.service;
+
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.DirectoryScanner;
+import com.optum.rsuite.kafka.rsuiteprimetransfer.util.FileChannelTransfer;
+import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.model.enums.CompressionLevel;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a whole batch directory as one zip in a single pass. Reader threads
+ * load up to rrd.zip.readAhead files, and no more than rrd.zip.readAheadBytes
+ * of content, into memory while the single writer appends entries in
+ * directory order; files larger than rrd.zip.prefetchMaxBytes are streamed
+ * by the writer instead.
+ * <p>
+ * rrd.zip.compression picks STORE, DEFLATE at rrd.zip.level, or ADAPTIVE,
+ * which deflates a sample from the first PDFs of the batch and only
+ * compresses the batch when the sample shrinks below
+ * rrd.zip.adaptive.maxRatio of its size. The default, DEFLATE at NORMAL,
+ * matches the zips zip4j produced with default ZipParameters.
+ */
+@Component
+public class ZipBuilder implements InitializingBean, DisposableBean {
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${rrd.zip.readers:4}")
+    private int readers;
+
+    @Value("${rrd.zip.readAhead:16}")
+    private int readAhead;
+
+    @Value("${rrd.zip.prefetchMaxBytes:8388608}")
+    private long prefetchMaxBytes;
+
+    @Value("${rrd.zip.readAheadBytes:16777216}")
+    private long readAheadBytes;
+
+    @Value("${rrd.zip.compression:DEFLATE}")
+    private Compression compression;
+
+    @Value("${rrd.zip.level:NORMAL}")
+    private CompressionLevel compressionLevel;
+
+    @Value("${rrd.zip.adaptive.sampleFiles:8}")
+    private int sampleFiles;
+
+    @Value("${rrd.zip.adaptive.sampleBytes:262144}")
+    private int sampleBytes;
+
+    @Value("${rrd.zip.adaptive.maxRatio:0.9}")
+    private double maxRatio;
+
+    public enum Compression {
+        STORE, DEFLATE, ADAPTIVE
+    }
+
+    @Autowired
+    private FileChannelTransfer fileChannelTransfer;
+
+    @Autowired
+    private DirectoryScanner directoryScanner;
+
+    private ExecutorService readerPool;
+
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger counter = new AtomicInteger();
+        readerPool = Executors.newFixedThreadPool(Math.max(1, readers), runnable -> {
+            Thread thread = new Thread(runnable, "zip-reader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        readerPool.shutdownNow();
+    }
+
+    public ZipStats build(File sourceDirectory, File zipFile) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(zipFile), 1 << 16)) {
+            return build(sourceDirectory, out);
+        } catch (IOException | RuntimeException e) {
+            if (zipFile.exists() && !zipFile.delete()) {
+                LOGGER.warn("Could not delete partial zip [{}]", zipFile.getPath());
+            }
+            throw e;
+        }
+    }
+
+    public ZipStats build(File sourceDirectory, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long cpuStart = cpuTime();
+        DirectoryScanner.BatchScan scan = directoryScanner.scan(sourceDirectory.getPath());
+        List<File> files = scan.getFiles();
+        CompressionMethod method = chooseMethod(sourceDirectory, scan.getPdfs());
+        Deque<Future<byte[]>> window = new ArrayDeque<>();
+        long[] reserved = new long[files.size()];
+        long windowBytes = 0;
+        int next = 0;
+        long bytes = 0;
+        long compressedBytes = 0;
+        try (ZipOutputStream zipStream = new ZipOutputStream(out)) {
+            for (int i = 0; i < files.size(); i++) {
+                while (next < files.size() && window.size() < Math.max(1, readAhead)) {
+                    long length = files.get(next).length();
+                    long size = length <= prefetchMaxBytes ? length : 0;
+                    if (!window.isEmpty() && windowBytes + size > readAheadBytes) {
+                        break;
+                    }
+                    reserved[next] = size;
+                    windowBytes += size;
+                    window.addLast(prefetch(files.get(next++)));
+                }
+                File file = files.get(i);
+                byte[] content = await(window.removeFirst(), file);
+                windowBytes -= reserved[i];
+                zipStream.putNextEntry(entryParameters(file, content, method));
+                if (content != null) {
+                    zipStream.write(content);
+                    bytes += content.length;
+                } else {
+                    bytes += fileChannelTransfer.copy(file, zipStream).getBytes();
+                }
+                FileHeader header = zipStream.closeEntry();
+                compressedBytes += header.getCompressedSize();
+            }
+        } finally {
+            for (Future<byte[]> pending : window) {
+                pending.cancel(true);
+            }
+        }
+        ZipStats stats = new ZipStats(files.size(), bytes, System.nanoTime() - start, method, compressedBytes, cpuTime() - cpuStart);
+        LOGGER.info("Zipped {} ::: [{}]", sourceDirectory, stats);
+        return stats;
+    }
+
+    private Future<byte[]> prefetch(File file) {
+        return readerPool.submit(() -> file.length() <= prefetchMaxBytes ? Files.readAllBytes(file.toPath()) : null);
+    }
+
+    private byte[] await(Future<byte[]> content, File file) throws IOException {
+        try {
+            return content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error in reading " + file + " ::: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private CompressionMethod chooseMethod(File sourceDirectory, List<File> files) throws IOException {
+        if (compression == Compression.STORE) {
+            return CompressionMethod.STORE;
+        }
+        if (compression == Compression.DEFLATE) {
+            return CompressionMethod.DEFLATE;
+        }
+        long sampled = 0;
+        long deflated = 0;
+        Deflater deflater = new Deflater(compressionLevel.getLevel(), true);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(1, sampleBytes));
+        byte[] scratch = new byte[1 << 16];
+        try {
+            for (int i = 0; i < files.size() && i < sampleFiles; i++) {
+                buffer.clear();
+                try (FileChannel in = FileChannel.open(files.get(i).toPath(), StandardOpenOption.READ)) {
+                    int read;
+                    do {
+                        read = in.read(buffer);
+                    } while (read != -1 && buffer.hasRemaining());
+                }
+                deflater.reset();
+                deflater.setInput(buffer.array(), 0, buffer.position());
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflated += deflater.deflate(scratch);
+                }
+                sampled += buffer.position();
+            }
+        } finally {
+            deflater.end();
+        }
+        double ratio = sampled == 0 ? 1 : deflated / (double) sampled;
+        CompressionMethod method = ratio <= maxRatio ? CompressionMethod.DEFLATE : CompressionMethod.STORE;
+        LOGGER.info("Sampled {} bytes of {} ::: [ratio {}, using {}]", sampled, sourceDirectory, String.format("%.3f", ratio), method);
+        return method;
+    }
+
+    private static long cpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private ZipParameters entryParameters(File file, byte[] content, CompressionMethod method) {
+        ZipParameters zipParameters = new ZipParameters();
+        zipParameters.setCompressionMethod(method);
+        if (method == CompressionMethod.DEFLATE) {
+            zipParameters.setCompressionLevel(compressionLevel);
+        }
+        zipParameters.setFileNameInZip(file.getName());
+        zipParameters.setEntrySize(content != null ? content.length : file.length());
+        zipParameters.setLastModifiedFileTime(file.lastModified());
+        return zipParameters;
+    }
+
+    public static final class ZipStats {
+        private final int entries;
+        private final long bytes;
+        private final long nanos;
+        private final CompressionMethod method;
+        private final long compressedBytes;
+        private final long cpuNanos;
+
+        public ZipStats(int entries, long bytes, long nanos, CompressionMethod method, long compressedBytes, long cpuNanos) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.method = method;
+            this.compressedBytes = compressedBytes;
+            this.cpuNanos = cpuNanos;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public CompressionMethod getMethod() {
+            return method;
+        }
+
+        public long getCompressedBytes() {
+            return compressedBytes;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public double getRatio() {
+            return bytes == 0 ? 1 : compressedBytes / (double) bytes;
+        }
+
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytes / (1024d * 1024d)) / (nanos / 1_000_000_000d);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes in %d ms (%.2f MB/s, %.1f files/s), %s to %d bytes (ratio %.3f, cpu %d ms)",
+                    entries, bytes, nanos / 1_000_000, getMegabytesPerSecond(), nanos == 0 ? 0 : entries / (nanos / 1_000_000_000d),
+                    method, compressedBytes, getRatio(), cpuNanos / 1_000_000);
+        }
+    }
+}